@@ -1,7 +1,9 @@
 package com.provectus.kafka.ui.config;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
@@ -13,6 +15,7 @@ import org.springframework.context.annotation.Configuration;
 public class ClustersProperties {
 
   List<Cluster> clusters = new ArrayList<>();
+  Jmx jmx = new Jmx();
 
   @Data
   public static class Cluster {
@@ -23,12 +26,21 @@ public class ClustersProperties {
     String schemaNameTemplate = "%s-value";
     String protobufFile;
     String protobufMessageName;
+    List<String> protobufFiles = new ArrayList<>();
+    // topic -> protobuf message name, protobufMessageName is used for other topics
+    Map<String, String> protobufMessageNameByTopic = new HashMap<>();
     List<ConnectCluster> kafkaConnect;
     int jmxPort;
     Properties properties;
     boolean readOnly = false;
   }
 
+  @Data
+  public static class Jmx {
+    // ObjectName patterns of scraped MBeans, JmxMetricsName based patterns are used if empty
+    List<String> objectNames = new ArrayList<>();
+  }
+
   @Data
   public static class ConnectCluster {
     String name;
@@ -5,6 +5,7 @@ import javax.management.remote.JMXConnector;
 import org.apache.commons.pool2.KeyedObjectPool;
 import org.apache.commons.pool2.impl.GenericKeyedObjectPool;
 import org.apache.commons.pool2.impl.GenericKeyedObjectPoolConfig;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.jmx.export.MBeanExporter;
@@ -14,17 +15,20 @@ import org.springframework.web.reactive.function.client.WebClient;
 public class Config {
 
   @Bean
-  public KeyedObjectPool<String, JMXConnector> pool() {
+  public KeyedObjectPool<String, JMXConnector> pool(
+      @Value("${kafka.jmx.timeout-ms:10000}") int timeoutMs) {
     GenericKeyedObjectPool<String, JMXConnector> pool =
-        new GenericKeyedObjectPool<>(new JmxPoolFactory());
-    pool.setConfig(poolConfig());
+        new GenericKeyedObjectPool<>(new JmxPoolFactory(timeoutMs));
+    pool.setConfig(poolConfig(timeoutMs));
     return pool;
   }
 
-  private GenericKeyedObjectPoolConfig poolConfig() {
+  private GenericKeyedObjectPoolConfig poolConfig(int timeoutMs) {
     GenericKeyedObjectPoolConfig poolConfig = new GenericKeyedObjectPoolConfig();
     poolConfig.setMaxIdlePerKey(3);
     poolConfig.setMaxTotalPerKey(3);
+    // connectors held by hung broker must not block scrapes of other brokers forever
+    poolConfig.setMaxWaitMillis(timeoutMs);
     return poolConfig;
   }
 
@@ -21,8 +21,9 @@ public class BrokersController implements BrokersApi {
   @Override
   public Mono<ResponseEntity<BrokerMetrics>> getBrokersMetrics(String clusterName, Integer id,
                                                                ServerWebExchange exchange) {
+    var version = clusterService.getSnapshotVersion(clusterName);
     return clusterService.getBrokerMetrics(clusterName, id)
-        .map(ResponseEntity::ok)
+        .map(m -> ConditionalResponses.ok(version, m))
         .onErrorReturn(ResponseEntity.notFound().build());
   }
 
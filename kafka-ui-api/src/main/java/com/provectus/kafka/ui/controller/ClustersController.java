@@ -2,9 +2,14 @@ package com.provectus.kafka.ui.controller;
 
 import com.provectus.kafka.ui.api.ClustersApi;
 import com.provectus.kafka.ui.model.Cluster;
+import com.provectus.kafka.ui.model.ClusterEvent;
 import com.provectus.kafka.ui.model.ClusterMetrics;
 import com.provectus.kafka.ui.model.ClusterStats;
+import com.provectus.kafka.ui.model.MetricHistory;
+import com.provectus.kafka.ui.model.MetricHistoryName;
+import com.provectus.kafka.ui.service.ClusterEventsService;
 import com.provectus.kafka.ui.service.ClusterService;
+import com.provectus.kafka.ui.service.MetricsHistoryService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.http.ResponseEntity;
@@ -18,25 +23,45 @@ import reactor.core.publisher.Mono;
 @Log4j2
 public class ClustersController implements ClustersApi {
   private final ClusterService clusterService;
+  private final MetricsHistoryService metricsHistoryService;
+  private final ClusterEventsService clusterEventsService;
 
   @Override
   public Mono<ResponseEntity<ClusterMetrics>> getClusterMetrics(String clusterName,
                                                                 ServerWebExchange exchange) {
+    var version = clusterService.getSnapshotVersion(clusterName);
     return clusterService.getClusterMetrics(clusterName)
-        .map(ResponseEntity::ok)
+        .map(m -> ConditionalResponses.ok(version, m))
         .onErrorReturn(ResponseEntity.notFound().build());
   }
 
+  @Override
+  public Mono<ResponseEntity<Flux<ClusterEvent>>> getClusterEvents(String clusterName,
+                                                                   ServerWebExchange exchange) {
+    return Mono.just(ResponseEntity.ok(clusterEventsService.getEvents(clusterName)));
+  }
+
+  @Override
+  public Mono<ResponseEntity<MetricHistory>> getClusterMetricsHistory(
+      String clusterName, MetricHistoryName metric, Integer brokerId, String topic, Long from,
+      Long to, ServerWebExchange exchange) {
+    return metricsHistoryService.getHistory(clusterName, metric, brokerId, topic, from, to)
+        .map(ResponseEntity::ok)
+        .switchIfEmpty(Mono.just(ResponseEntity.notFound().build()));
+  }
+
   @Override
   public Mono<ResponseEntity<ClusterStats>> getClusterStats(String clusterName,
                                                             ServerWebExchange exchange) {
+    var version = clusterService.getSnapshotVersion(clusterName);
     return clusterService.getClusterStats(clusterName)
-        .map(ResponseEntity::ok)
+        .map(s -> ConditionalResponses.ok(version, s))
         .onErrorReturn(ResponseEntity.notFound().build());
   }
 
   @Override
   public Mono<ResponseEntity<Flux<Cluster>>> getClusters(ServerWebExchange exchange) {
-    return Mono.just(ResponseEntity.ok(Flux.fromIterable(clusterService.getClusters())));
+    return Mono.just(ConditionalResponses.ok(clusterService.getSnapshotVersion(),
+        Flux.fromIterable(clusterService.getClusters())));
   }
 }
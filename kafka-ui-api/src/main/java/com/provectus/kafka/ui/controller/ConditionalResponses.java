@@ -0,0 +1,23 @@
+package com.provectus.kafka.ui.controller;
+
+import com.provectus.kafka.ui.model.InternalSnapshotVersion;
+import java.util.Optional;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Responses built from cluster snapshots carry ETag and Last-Modified of the snapshot, so
+ * conditional GET requests get 304 Not Modified (checked by spring when response entity is
+ * written) until the next snapshot update. Version should be taken before the body is
+ * rendered, so body is never older than its ETag.
+ */
+final class ConditionalResponses {
+
+  private ConditionalResponses() {
+  }
+
+  static <T> ResponseEntity<T> ok(Optional<InternalSnapshotVersion> version, T body) {
+    final ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+    version.ifPresent(v -> builder.eTag(v.getETag()).lastModified(v.getTimestamp()));
+    return builder.body(body);
+  }
+}
@@ -2,6 +2,7 @@ package com.provectus.kafka.ui.controller;
 
 import com.provectus.kafka.ui.api.MessagesApi;
 import com.provectus.kafka.ui.model.ConsumerPosition;
+import com.provectus.kafka.ui.model.MessageFilterType;
 import com.provectus.kafka.ui.model.SeekType;
 import com.provectus.kafka.ui.model.TopicMessage;
 import com.provectus.kafka.ui.service.ClusterService;
@@ -13,6 +14,7 @@ import javax.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.apache.commons.lang3.tuple.Pair;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ServerWebExchange;
@@ -23,6 +25,9 @@ import reactor.core.publisher.Mono;
 @RequiredArgsConstructor
 @Log4j2
 public class MessagesController implements MessagesApi {
+  private static final List<MediaType> STREAMING_TYPES =
+      List.of(MediaType.TEXT_EVENT_STREAM, MediaType.APPLICATION_STREAM_JSON);
+
   private final ClusterService clusterService;
 
   @Override
@@ -40,10 +45,36 @@ public class MessagesController implements MessagesApi {
   @Override
   public Mono<ResponseEntity<Flux<TopicMessage>>> getTopicMessages(
       String clusterName, String topicName, @Valid SeekType seekType, @Valid List<String> seekTo,
-      @Valid Integer limit, @Valid String q, ServerWebExchange exchange) {
+      @Valid Integer limit, @Valid String q, @Valid MessageFilterType filterQueryType,
+      @Valid Long toTimestamp, ServerWebExchange exchange) {
+    final boolean streaming = isStreamingRequest(exchange);
     return parseConsumerPosition(seekType, seekTo)
-        .map(consumerPosition -> ResponseEntity
-            .ok(clusterService.getMessages(clusterName, topicName, consumerPosition, q, limit)));
+        .map(consumerPosition -> ResponseEntity.ok(streaming
+            ? clusterService.streamMessages(
+                clusterName, topicName, consumerPosition, q, filterQueryType, limit, toTimestamp)
+            : clusterService.getMessages(
+                clusterName, topicName, consumerPosition, q, filterQueryType, limit, toTimestamp)));
+  }
+
+  @Override
+  public Mono<ResponseEntity<TopicMessage>> getTopicMessage(
+      String clusterName, String topicName, Integer partition, Long offset,
+      ServerWebExchange exchange) {
+    return clusterService.getMessage(clusterName, topicName, partition, offset)
+        .map(ResponseEntity::ok);
+  }
+
+  @Override
+  public Mono<ResponseEntity<Flux<TopicMessage>>> tailTopicMessages(
+      String clusterName, String topicName, @Valid String q,
+      @Valid MessageFilterType filterQueryType, ServerWebExchange exchange) {
+    return Mono.just(ResponseEntity.ok(
+        clusterService.tailMessages(clusterName, topicName, q, filterQueryType)));
+  }
+
+  private boolean isStreamingRequest(ServerWebExchange exchange) {
+    return exchange.getRequest().getHeaders().getAccept().stream()
+        .anyMatch(type -> STREAMING_TYPES.stream().anyMatch(type::equalsTypeAndSubtype));
   }
 
   private Mono<ConsumerPosition> parseConsumerPosition(SeekType seekType, List<String> seekTo) {
@@ -1,7 +1,9 @@
 package com.provectus.kafka.ui.controller;
 
 import com.provectus.kafka.ui.api.TopicsApi;
+import com.provectus.kafka.ui.model.SortOrder;
 import com.provectus.kafka.ui.model.Topic;
+import com.provectus.kafka.ui.model.TopicColumnsToSort;
 import com.provectus.kafka.ui.model.TopicConfig;
 import com.provectus.kafka.ui.model.TopicCreation;
 import com.provectus.kafka.ui.model.TopicDetails;
@@ -43,30 +45,33 @@ public class TopicsController implements TopicsApi {
   @Override
   public Mono<ResponseEntity<Flux<TopicConfig>>> getTopicConfigs(
       String clusterName, String topicName, ServerWebExchange exchange) {
-    return Mono.just(
-        clusterService.getTopicConfigs(clusterName, topicName)
-            .map(Flux::fromIterable)
-            .map(ResponseEntity::ok)
-            .orElse(ResponseEntity.notFound().build())
-    );
+    return clusterService.getTopicConfigs(clusterName, topicName)
+        .map(Flux::fromIterable)
+        .map(ResponseEntity::ok)
+        .defaultIfEmpty(ResponseEntity.notFound().build());
   }
 
   @Override
   public Mono<ResponseEntity<TopicDetails>> getTopicDetails(
       String clusterName, String topicName, ServerWebExchange exchange) {
-    return Mono.just(
-        clusterService.getTopicDetails(clusterName, topicName)
-            .map(ResponseEntity::ok)
-            .orElse(ResponseEntity.notFound().build())
-    );
+    return clusterService.getTopicDetails(clusterName, topicName)
+        .map(ResponseEntity::ok)
+        .switchIfEmpty(Mono.just(ResponseEntity.notFound().build()));
   }
 
   @Override
   public Mono<ResponseEntity<TopicsResponse>> getTopics(String clusterName, @Valid Integer page,
                                                         @Valid Integer perPage,
+                                                        @Valid String search,
+                                                        @Valid Boolean showInternal,
+                                                        @Valid TopicColumnsToSort orderBy,
+                                                        @Valid SortOrder sortOrder,
                                                         ServerWebExchange exchange) {
-    return Mono.just(ResponseEntity.ok(clusterService
-        .getTopics(clusterName, Optional.ofNullable(page), Optional.ofNullable(perPage))));
+    return Mono.just(ConditionalResponses.ok(clusterService.getSnapshotVersion(clusterName),
+        clusterService.getTopics(clusterName, Optional.ofNullable(page),
+            Optional.ofNullable(perPage), Optional.ofNullable(search),
+            Optional.ofNullable(showInternal), Optional.ofNullable(orderBy),
+            Optional.ofNullable(sortOrder))));
   }
 
   @Override
@@ -0,0 +1,87 @@
+package com.provectus.kafka.ui.deserialization;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericFixed;
+import org.apache.avro.generic.GenericRecord;
+
+/**
+ * Converts avro records to maps and lists directly, producing the same structure as
+ * parsing output of avro json encoder (including union branch wrappers), but without
+ * intermediate json serialization.
+ */
+public class AvroRecordConverter {
+
+  public Map<String, Object> convert(GenericRecord record) {
+    return convertRecord(record);
+  }
+
+  private Map<String, Object> convertRecord(GenericRecord record) {
+    final List<Schema.Field> fields = record.getSchema().getFields();
+    final Map<String, Object> result = new LinkedHashMap<>(fields.size() * 2);
+    for (Schema.Field field : fields) {
+      result.put(field.name(), convertValue(field.schema(), record.get(field.pos())));
+    }
+    return result;
+  }
+
+  private Object convertValue(Schema schema, Object value) {
+    switch (schema.getType()) {
+      case NULL:
+        return null;
+      case RECORD:
+        return convertRecord((GenericRecord) value);
+      case UNION:
+        return convertUnion(schema, value);
+      case ARRAY:
+        final Collection<?> items = (Collection<?>) value;
+        final List<Object> list = new ArrayList<>(items.size());
+        for (Object item : items) {
+          list.add(convertValue(schema.getElementType(), item));
+        }
+        return list;
+      case MAP:
+        final Map<?, ?> entries = (Map<?, ?>) value;
+        final Map<String, Object> map = new LinkedHashMap<>(entries.size() * 2);
+        for (Map.Entry<?, ?> entry : entries.entrySet()) {
+          map.put(entry.getKey().toString(), convertValue(schema.getValueType(), entry.getValue()));
+        }
+        return map;
+      case FIXED:
+        return new String(((GenericFixed) value).bytes(), StandardCharsets.ISO_8859_1);
+      case BYTES:
+        final ByteBuffer buffer = ((ByteBuffer) value).duplicate();
+        final byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+      case ENUM:
+      case STRING:
+        return value.toString();
+      case INT:
+      case LONG:
+      case FLOAT:
+      case DOUBLE:
+      case BOOLEAN:
+        return value;
+      default:
+        throw new IllegalArgumentException("Unsupported avro type " + schema.getType());
+    }
+  }
+
+  private Object convertUnion(Schema schema, Object value) {
+    final Schema branch = schema.getTypes().get(GenericData.get().resolveUnion(schema, value));
+    if (branch.getType() == Schema.Type.NULL) {
+      return null;
+    }
+    final Map<String, Object> result = new LinkedHashMap<>(2);
+    result.put(branch.getFullName(), convertValue(branch, value));
+    return result;
+  }
+}
@@ -3,6 +3,9 @@ package com.provectus.kafka.ui.deserialization;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.provectus.kafka.ui.model.KafkaCluster;
 import com.provectus.kafka.ui.service.ClustersStorage;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 import javax.annotation.PostConstruct;
@@ -29,9 +32,16 @@ public class DeserializationService {
 
   private RecordDeserializer createRecordDeserializerForCluster(KafkaCluster cluster) {
     try {
+      final List<Path> protobufFiles = new ArrayList<>();
       if (cluster.getProtobufFile() != null) {
-        return new ProtobufFileRecordDeserializer(cluster.getProtobufFile(),
-            cluster.getProtobufMessageName(), objectMapper);
+        protobufFiles.add(cluster.getProtobufFile());
+      }
+      if (cluster.getProtobufFiles() != null) {
+        protobufFiles.addAll(cluster.getProtobufFiles());
+      }
+      if (!protobufFiles.isEmpty()) {
+        return new ProtobufFileRecordDeserializer(protobufFiles, cluster.getProtobufMessageName(),
+            cluster.getProtobufMessageNameByTopic(), objectMapper);
       } else {
         return new SchemaRegistryRecordDeserializer(cluster, objectMapper);
       }
@@ -1,46 +1,81 @@
 package com.provectus.kafka.ui.deserialization;
 
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.Descriptors.Descriptor;
 import com.google.protobuf.DynamicMessage;
 import io.confluent.kafka.schemaregistry.protobuf.ProtobufSchema;
-import io.confluent.kafka.schemaregistry.protobuf.ProtobufSchemaUtils;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.common.utils.Bytes;
 
+/**
+ * Deserializes records with message types from local .proto files. Descriptors of all
+ * message types (including nested ones) are built once on startup and looked up by full or
+ * simple name, message type can be configured per topic.
+ */
 public class ProtobufFileRecordDeserializer implements RecordDeserializer {
-  private final ProtobufSchema protobufSchema;
-  private final ObjectMapper objectMapper;
+  private final Map<String, Descriptor> descriptors = new HashMap<>();
+  private final Map<String, Descriptor> topicDescriptors = new HashMap<>();
+  private final Descriptor defaultDescriptor;
+  private final ProtobufMessageConverter protobufMessageConverter;
 
-  public ProtobufFileRecordDeserializer(Path protobufSchemaPath, String messageName,
+  public ProtobufFileRecordDeserializer(List<Path> protobufSchemaPaths, String messageName,
+                                        Map<String, String> messageNameByTopic,
                                         ObjectMapper objectMapper) throws IOException {
-    this.objectMapper = objectMapper;
-    final String schemaString = Files.lines(protobufSchemaPath).collect(Collectors.joining());
-    this.protobufSchema = new ProtobufSchema(schemaString).copy(messageName);
+    this.protobufMessageConverter = new ProtobufMessageConverter(objectMapper);
+    Descriptor first = null;
+    for (Path path : protobufSchemaPaths) {
+      final Descriptor descriptor = new ProtobufSchema(Files.readString(path)).toDescriptor();
+      if (first == null) {
+        first = descriptor;
+      }
+      for (Descriptor messageType : descriptor.getFile().getMessageTypes()) {
+        register(messageType);
+      }
+    }
+    this.defaultDescriptor = messageName != null ? getDescriptor(messageName) : first;
+    if (messageNameByTopic != null) {
+      messageNameByTopic.forEach((topic, name) -> topicDescriptors.put(topic, getDescriptor(name)));
+    }
+  }
+
+  private void register(Descriptor descriptor) {
+    descriptors.put(descriptor.getFullName(), descriptor);
+    descriptors.putIfAbsent(descriptor.getName(), descriptor);
+    for (Descriptor nested : descriptor.getNestedTypes()) {
+      register(nested);
+    }
+  }
+
+  private Descriptor getDescriptor(String messageName) {
+    final Descriptor descriptor = descriptors.get(messageName);
+    if (descriptor == null) {
+      throw new IllegalArgumentException("Message type " + messageName + " not found");
+    }
+    return descriptor;
   }
 
   @Override
   public Object deserialize(ConsumerRecord<Bytes, Bytes> record) {
     try {
       final DynamicMessage message = DynamicMessage.parseFrom(
-          protobufSchema.toDescriptor(),
-          new ByteArrayInputStream(record.value().get())
+          topicDescriptors.getOrDefault(record.topic(), defaultDescriptor),
+          record.value().get()
       );
-      byte[] bytes = ProtobufSchemaUtils.toJson(message);
-      return parseJson(bytes);
+      return protobufMessageConverter.convert(message);
     } catch (Throwable e) {
       throw new RuntimeException("Failed to parse record from topic " + record.topic(), e);
     }
   }
 
-  private Object parseJson(byte[] bytes) throws IOException {
-    return objectMapper.readValue(bytes, new TypeReference<Map<String, Object>>() {
-    });
+  @Override
+  public String previewValue(ConsumerRecord<Bytes, Bytes> record, int maxBytes) {
+    // protobuf is binary, part of message can't be shown as text
+    return null;
   }
 }
@@ -0,0 +1,118 @@
+package com.provectus.kafka.ui.deserialization;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Descriptors.Descriptor;
+import com.google.protobuf.Descriptors.EnumValueDescriptor;
+import com.google.protobuf.Descriptors.FieldDescriptor;
+import com.google.protobuf.Message;
+import io.confluent.kafka.schemaregistry.protobuf.ProtobufSchemaUtils;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Converts protobuf messages to maps and lists directly, producing the same structure as
+ * parsing output of protobuf json printer with default values included, but without
+ * intermediate json serialization. Fields of every message type are resolved once and
+ * cached. Well-known types (Timestamp, Any, wrappers, etc.) have special json formats, so
+ * they are still converted through json.
+ */
+public class ProtobufMessageConverter {
+
+  private static final String WELL_KNOWN_TYPES_PACKAGE = "google.protobuf.";
+
+  private final ObjectMapper objectMapper;
+  private final Map<Descriptor, FieldDescriptor[]> fieldsCache = new ConcurrentHashMap<>();
+
+  public ProtobufMessageConverter(ObjectMapper objectMapper) {
+    this.objectMapper = objectMapper;
+  }
+
+  public Map<String, Object> convert(Message message) throws IOException {
+    final FieldDescriptor[] fields = fieldsCache.computeIfAbsent(
+        message.getDescriptorForType(),
+        d -> d.getFields().toArray(FieldDescriptor[]::new)
+    );
+    final Map<String, Object> result = new LinkedHashMap<>(fields.length * 2);
+    for (FieldDescriptor field : fields) {
+      if (field.isRepeated()) {
+        result.put(field.getJsonName(), convertRepeated(field, message.getField(field)));
+      } else if (!hasPresence(field) || message.hasField(field)) {
+        result.put(field.getJsonName(), convertSingle(field, message.getField(field)));
+      }
+    }
+    return result;
+  }
+
+  private static boolean hasPresence(FieldDescriptor field) {
+    return field.getJavaType() == FieldDescriptor.JavaType.MESSAGE
+        || field.getContainingOneof() != null;
+  }
+
+  private Object convertRepeated(FieldDescriptor field, Object value) throws IOException {
+    final List<?> items = (List<?>) value;
+    if (field.isMapField()) {
+      final FieldDescriptor keyField = field.getMessageType().findFieldByNumber(1);
+      final FieldDescriptor valueField = field.getMessageType().findFieldByNumber(2);
+      final Map<String, Object> map = new LinkedHashMap<>(items.size() * 2);
+      for (Object item : items) {
+        final Message entry = (Message) item;
+        map.put(
+            String.valueOf(convertSingle(keyField, entry.getField(keyField))),
+            convertSingle(valueField, entry.getField(valueField))
+        );
+      }
+      return map;
+    }
+    final List<Object> list = new ArrayList<>(items.size());
+    for (Object item : items) {
+      list.add(convertSingle(field, item));
+    }
+    return list;
+  }
+
+  private Object convertSingle(FieldDescriptor field, Object value) throws IOException {
+    switch (field.getType()) {
+      case MESSAGE:
+      case GROUP:
+        final Message message = (Message) value;
+        if (message.getDescriptorForType().getFullName().startsWith(WELL_KNOWN_TYPES_PACKAGE)) {
+          return objectMapper.readValue(ProtobufSchemaUtils.toJson(message),
+              new TypeReference<Object>() {
+              });
+        }
+        return convert(message);
+      case ENUM:
+        final EnumValueDescriptor enumValue = (EnumValueDescriptor) value;
+        // unknown enum values are printed as numbers
+        return enumValue.getIndex() == -1 ? enumValue.getNumber() : enumValue.getName();
+      case BYTES:
+        return Base64.getEncoder().encodeToString(((ByteString) value).toByteArray());
+      case UINT32:
+      case FIXED32:
+        return Integer.toUnsignedLong((Integer) value);
+      case INT64:
+      case SINT64:
+      case SFIXED64:
+        return value.toString();
+      case UINT64:
+      case FIXED64:
+        return Long.toUnsignedString((Long) value);
+      case FLOAT:
+        final Float floatValue = (Float) value;
+        return floatValue.isNaN() || floatValue.isInfinite() ? floatValue.toString() : floatValue;
+      case DOUBLE:
+        final Double doubleValue = (Double) value;
+        return doubleValue.isNaN() || doubleValue.isInfinite()
+            ? doubleValue.toString() : doubleValue;
+      default:
+        return value;
+    }
+  }
+}
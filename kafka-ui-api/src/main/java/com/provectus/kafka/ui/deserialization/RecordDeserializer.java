@@ -1,9 +1,32 @@
 package com.provectus.kafka.ui.deserialization;
 
+import java.nio.charset.StandardCharsets;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.common.utils.Bytes;
 
 public interface RecordDeserializer {
 
   Object deserialize(ConsumerRecord<Bytes, Bytes> record);
+
+  default String deserializeKey(ConsumerRecord<Bytes, Bytes> record) {
+    return record.key() != null ? record.key().toString() : null;
+  }
+
+  /**
+   * Returns beginning of record value as text, used instead of value which is too large to be
+   * returned in full. Value is cut on character boundary, so result is at most maxBytes long
+   * in UTF-8. Returns null if value is binary and has no meaningful text preview.
+   */
+  default String previewValue(ConsumerRecord<Bytes, Bytes> record, int maxBytes) {
+    final byte[] bytes = record.value().get();
+    if (bytes.length <= maxBytes) {
+      return new String(bytes, StandardCharsets.UTF_8);
+    }
+    int end = maxBytes;
+    // first cut byte is continuation of multi-byte character, character is dropped entirely
+    while (end > 0 && (bytes[end] & 0xC0) == 0x80) {
+      end--;
+    }
+    return new String(bytes, 0, end, StandardCharsets.UTF_8);
+  }
 }
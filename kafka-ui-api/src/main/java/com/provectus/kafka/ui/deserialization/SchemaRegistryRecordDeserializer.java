@@ -1,21 +1,20 @@
 package com.provectus.kafka.ui.deserialization;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.protobuf.Message;
 import com.provectus.kafka.ui.model.KafkaCluster;
 import io.confluent.kafka.schemaregistry.SchemaProvider;
 import io.confluent.kafka.schemaregistry.avro.AvroSchemaProvider;
-import io.confluent.kafka.schemaregistry.avro.AvroSchemaUtils;
 import io.confluent.kafka.schemaregistry.client.CachedSchemaRegistryClient;
 import io.confluent.kafka.schemaregistry.client.SchemaRegistryClient;
-import io.confluent.kafka.schemaregistry.client.rest.entities.Schema;
 import io.confluent.kafka.schemaregistry.client.rest.exceptions.RestClientException;
 import io.confluent.kafka.schemaregistry.protobuf.ProtobufSchemaProvider;
-import io.confluent.kafka.schemaregistry.protobuf.ProtobufSchemaUtils;
 import io.confluent.kafka.serializers.KafkaAvroDeserializer;
 import io.confluent.kafka.serializers.protobuf.KafkaProtobufDeserializer;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -31,21 +30,24 @@ import org.apache.kafka.common.utils.Bytes;
 public class SchemaRegistryRecordDeserializer implements RecordDeserializer {
 
   private static final int CLIENT_IDENTITY_MAP_CAPACITY = 100;
+  private static final int SCHEMA_FORMATS_CACHE_SIZE = 1000;
+  private static final byte MAGIC_BYTE = 0x0;
+  private static final int SCHEMA_ID_PREFIX_SIZE = 1 + Integer.BYTES;
+  private static final int SCHEMA_NOT_FOUND_ERROR_CODE = 40403;
 
-  private final KafkaCluster cluster;
   private final SchemaRegistryClient schemaRegistryClient;
   private final KafkaAvroDeserializer avroDeserializer;
   private final KafkaProtobufDeserializer<?> protobufDeserializer;
   private final ObjectMapper objectMapper;
   private final StringDeserializer stringDeserializer;
+  private final AvroRecordConverter avroRecordConverter = new AvroRecordConverter();
+  private final ProtobufMessageConverter protobufMessageConverter;
 
-  private final Map<String, MessageFormat> topicFormatMap = new ConcurrentHashMap<>();
+  // schema id -> format, bounded since schema ids are not reused but can grow over time
+  private final Map<Integer, MessageFormat> schemaFormats = new ConcurrentHashMap<>();
 
   public SchemaRegistryRecordDeserializer(KafkaCluster cluster, ObjectMapper objectMapper) {
-    this.cluster = cluster;
-    this.objectMapper = objectMapper;
-
-    this.schemaRegistryClient = Optional.ofNullable(cluster.getSchemaRegistry())
+    this(Optional.ofNullable(cluster.getSchemaRegistry())
         .map(schemaRegistryUrl -> {
               List<SchemaProvider> schemaProviders =
                   List.of(new AvroSchemaProvider(), new ProtobufSchemaProvider());
@@ -56,8 +58,13 @@ public class SchemaRegistryRecordDeserializer implements RecordDeserializer {
                   Collections.emptyMap()
               );
             }
-        ).orElse(null);
+        ).orElse(null), objectMapper);
+  }
 
+  SchemaRegistryRecordDeserializer(SchemaRegistryClient schemaRegistryClient,
+                                   ObjectMapper objectMapper) {
+    this.objectMapper = objectMapper;
+    this.schemaRegistryClient = schemaRegistryClient;
     this.avroDeserializer = Optional.ofNullable(this.schemaRegistryClient)
         .map(KafkaAvroDeserializer::new)
         .orElse(null);
@@ -65,132 +72,135 @@ public class SchemaRegistryRecordDeserializer implements RecordDeserializer {
         .map(KafkaProtobufDeserializer::new)
         .orElse(null);
     this.stringDeserializer = new StringDeserializer();
+    this.protobufMessageConverter = new ProtobufMessageConverter(objectMapper);
   }
 
+  @Override
   public Object deserialize(ConsumerRecord<Bytes, Bytes> record) {
-    MessageFormat format = getMessageFormat(record);
+    if (record.value() == null) {
+      return Map.of();
+    }
+    return deserializeBytes(record.topic(), record.value().get());
+  }
 
+  @Override
+  public String deserializeKey(ConsumerRecord<Bytes, Bytes> record) {
+    if (record.key() == null) {
+      return null;
+    }
+    final byte[] bytes = record.key().get();
+    final MessageFormat format = detectFormat(bytes);
+    if (format == MessageFormat.AVRO || format == MessageFormat.PROTOBUF) {
+      try {
+        return objectMapper.writeValueAsString(deserializeBytes(record.topic(), bytes));
+      } catch (JsonProcessingException e) {
+        throw new RuntimeException("Failed to serialize key from topic " + record.topic(), e);
+      }
+    }
+    // json and string keys are shown as is, without parsing
+    final int offset = format == MessageFormat.JSON && bytes[0] == MAGIC_BYTE
+        ? SCHEMA_ID_PREFIX_SIZE : 0;
+    return new String(bytes, offset, bytes.length - offset, StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public String previewValue(ConsumerRecord<Bytes, Bytes> record, int maxBytes) {
+    final MessageFormat format = detectFormat(record.value().get());
+    if (format == MessageFormat.AVRO || format == MessageFormat.PROTOBUF) {
+      return null;
+    }
+    return RecordDeserializer.super.previewValue(record, maxBytes);
+  }
+
+  private Object deserializeBytes(String topic, byte[] bytes) {
+    final MessageFormat format = detectFormat(bytes);
     try {
-      Object parsedValue;
       switch (format) {
         case AVRO:
-          parsedValue = parseAvroRecord(record);
-          break;
+          return avroRecordConverter.convert(
+              (GenericRecord) avroDeserializer.deserialize(topic, bytes));
         case PROTOBUF:
-          parsedValue = parseProtobufRecord(record);
-          break;
+          return protobufMessageConverter.convert(
+              protobufDeserializer.deserialize(topic, bytes));
         case JSON:
-          parsedValue = parseJsonRecord(record);
-          break;
+          return parseJson(bytes, bytes[0] == MAGIC_BYTE ? SCHEMA_ID_PREFIX_SIZE : 0);
         case STRING:
-          parsedValue = parseStringRecord(record);
-          break;
+          return stringDeserializer.deserialize(topic, bytes);
         default:
           throw new IllegalArgumentException(
-              "Unknown message format " + format + " for topic " + record.topic());
+              "Unknown message format " + format + " for topic " + topic);
       }
-      return parsedValue;
     } catch (IOException e) {
-      throw new RuntimeException("Failed to parse record from topic " + record.topic(), e);
+      if (format == MessageFormat.JSON) {
+        // looked like json object, but is not
+        return stringDeserializer.deserialize(topic, bytes);
+      }
+      throw new RuntimeException("Failed to parse record from topic " + topic, e);
     }
   }
 
-  private MessageFormat getMessageFormat(ConsumerRecord<Bytes, Bytes> record) {
-    return topicFormatMap.computeIfAbsent(record.topic(), k -> detectFormat(record));
-  }
-
-  private MessageFormat detectFormat(ConsumerRecord<Bytes, Bytes> record) {
-    String schemaName = String.format(cluster.getSchemaNameTemplate(), record.topic());
-    if (schemaRegistryClient != null) {
-      try {
-        final List<Integer> versions = schemaRegistryClient.getAllVersions(schemaName);
-        if (!versions.isEmpty()) {
-          final Integer version = versions.iterator().next();
-          final String subjectName = String.format(cluster.getSchemaNameTemplate(), record.topic());
-          final Schema schema = schemaRegistryClient.getByVersion(subjectName, version, false);
-          if (schema.getSchemaType().equals(MessageFormat.PROTOBUF.name())) {
-            try {
-              protobufDeserializer.deserialize(record.topic(), record.value().get());
-              return MessageFormat.PROTOBUF;
-            } catch (Throwable e) {
-              log.info("Failed to get Protobuf schema for topic {}", record.topic(), e);
-            }
-          } else if (schema.getSchemaType().equals(MessageFormat.AVRO.name())) {
-            try {
-              avroDeserializer.deserialize(record.topic(), record.value().get());
-              return MessageFormat.AVRO;
-            } catch (Throwable e) {
-              log.info("Failed to get Avro schema for topic {}", record.topic(), e);
-            }
-          } else if (schema.getSchemaType().equals(MessageFormat.JSON.name())) {
-            try {
-              parseJsonRecord(record);
-              return MessageFormat.JSON;
-            } catch (IOException e) {
-              log.info("Failed to parse json from topic {}", record.topic());
-            }
-          }
-        }
-      } catch (RestClientException | IOException e) {
-        log.warn("Failed to get Schema for topic {}", record.topic(), e);
+  /**
+   * Format is detected for every record, records written with schema registry serializers
+   * start with magic byte and schema id, and format is resolved by schema id. Other records
+   * are treated as json if they look like json object, and as strings otherwise.
+   */
+  private MessageFormat detectFormat(byte[] bytes) {
+    if (schemaRegistryClient != null && bytes.length > SCHEMA_ID_PREFIX_SIZE
+        && bytes[0] == MAGIC_BYTE) {
+      final int schemaId = ByteBuffer.wrap(bytes, 1, Integer.BYTES).getInt();
+      final MessageFormat cached = schemaFormats.get(schemaId);
+      final MessageFormat format = cached != null ? cached : getSchemaFormat(schemaId);
+      if (format != MessageFormat.STRING) {
+        return format;
       }
     }
+    return looksLikeJsonObject(bytes) ? MessageFormat.JSON : MessageFormat.STRING;
+  }
 
+  /**
+   * Fetches schema format from registry outside of the cache, so a slow registry doesn't block
+   * format detection of other records. Only resolved formats and unknown schema ids are cached,
+   * registry failures are not, and the schema is fetched again for the next record.
+   */
+  private MessageFormat getSchemaFormat(int schemaId) {
+    MessageFormat format;
     try {
-      parseJsonRecord(record);
-      return MessageFormat.JSON;
+      format = MessageFormat.valueOf(schemaRegistryClient.getSchemaById(schemaId).schemaType());
+    } catch (RestClientException e) {
+      if (e.getErrorCode() != SCHEMA_NOT_FOUND_ERROR_CODE) {
+        log.warn("Failed to get schema with id {}", schemaId, e);
+        return MessageFormat.STRING;
+      }
+      // bytes looked like schema registry prefix, but schema id is unknown
+      log.info("Schema with id {} not found", schemaId);
+      format = MessageFormat.STRING;
     } catch (IOException e) {
-      log.info("Failed to parse json from topic {}", record.topic());
-    }
-
-    return MessageFormat.STRING;
-  }
-
-  private Object parseAvroRecord(ConsumerRecord<Bytes, Bytes> record) throws IOException {
-    String topic = record.topic();
-    if (record.value() != null && avroDeserializer != null) {
-      byte[] valueBytes = record.value().get();
-      GenericRecord avroRecord = (GenericRecord) avroDeserializer.deserialize(topic, valueBytes);
-      byte[] bytes = AvroSchemaUtils.toJson(avroRecord);
-      return parseJson(bytes);
-    } else {
-      return Map.of();
+      log.warn("Failed to get schema with id {}", schemaId, e);
+      return MessageFormat.STRING;
+    } catch (IllegalArgumentException e) {
+      log.info("Schema with id {} has unsupported type", schemaId, e);
+      format = MessageFormat.STRING;
     }
-  }
-
-  private Object parseProtobufRecord(ConsumerRecord<Bytes, Bytes> record) throws IOException {
-    String topic = record.topic();
-    if (record.value() != null && protobufDeserializer != null) {
-      byte[] valueBytes = record.value().get();
-      final Message message = protobufDeserializer.deserialize(topic, valueBytes);
-      byte[] bytes = ProtobufSchemaUtils.toJson(message);
-      return parseJson(bytes);
-    } else {
-      return Map.of();
+    if (schemaFormats.size() >= SCHEMA_FORMATS_CACHE_SIZE) {
+      schemaFormats.clear();
     }
+    final MessageFormat cached = schemaFormats.putIfAbsent(schemaId, format);
+    return cached != null ? cached : format;
   }
 
-  private Object parseJsonRecord(ConsumerRecord<Bytes, Bytes> record) throws IOException {
-    var value = record.value();
-    if (value == null) {
-      return Map.of();
+  private static boolean looksLikeJsonObject(byte[] bytes) {
+    for (byte b : bytes) {
+      if (!Character.isWhitespace(b)) {
+        return b == '{';
+      }
     }
-    byte[] valueBytes = value.get();
-    return parseJson(valueBytes);
+    return false;
   }
 
-  private Object parseJson(byte[] bytes) throws IOException {
-    return objectMapper.readValue(bytes, new TypeReference<Map<String, Object>>() {
-    });
-  }
-
-  private Object parseStringRecord(ConsumerRecord<Bytes, Bytes> record) {
-    String topic = record.topic();
-    if (record.value() == null) {
-      return Map.of();
-    }
-    byte[] valueBytes = record.value().get();
-    return stringDeserializer.deserialize(topic, valueBytes);
+  private Object parseJson(byte[] bytes, int offset) throws IOException {
+    return objectMapper.readValue(bytes, offset, bytes.length - offset,
+        new TypeReference<Map<String, Object>>() {
+        });
   }
 
   public enum MessageFormat {
@@ -0,0 +1,13 @@
+package com.provectus.kafka.ui.exception;
+
+public class MessageNotFoundException extends CustomBaseException {
+
+  public MessageNotFoundException() {
+    super("Message not found");
+  }
+
+  @Override
+  public ErrorCode getErrorCode() {
+    return ErrorCode.MESSAGE_NOT_FOUND;
+  }
+}
@@ -13,12 +13,14 @@ import com.provectus.kafka.ui.model.Feature;
 import com.provectus.kafka.ui.model.InternalBrokerDiskUsage;
 import com.provectus.kafka.ui.model.InternalBrokerMetrics;
 import com.provectus.kafka.ui.model.InternalClusterMetrics;
+import com.provectus.kafka.ui.model.InternalMetric;
 import com.provectus.kafka.ui.model.InternalPartition;
 import com.provectus.kafka.ui.model.InternalReplica;
 import com.provectus.kafka.ui.model.InternalTopic;
 import com.provectus.kafka.ui.model.InternalTopicConfig;
 import com.provectus.kafka.ui.model.KafkaCluster;
 import com.provectus.kafka.ui.model.KafkaConnectCluster;
+import com.provectus.kafka.ui.model.Metric;
 import com.provectus.kafka.ui.model.Partition;
 import com.provectus.kafka.ui.model.Replica;
 import com.provectus.kafka.ui.model.Topic;
@@ -28,6 +30,7 @@ import com.provectus.kafka.ui.model.schemaregistry.InternalCompatibilityCheck;
 import com.provectus.kafka.ui.model.schemaregistry.InternalCompatibilityLevel;
 import java.math.BigDecimal;
 import java.nio.file.Path;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
@@ -48,6 +51,7 @@ public interface ClusterMapper {
   Cluster toCluster(KafkaCluster cluster);
 
   @Mapping(target = "protobufFile", source = "protobufFile", qualifiedByName = "resolvePath")
+  @Mapping(target = "protobufFiles", source = "protobufFiles", qualifiedByName = "resolvePaths")
   @Mapping(target = "properties", source = "properties", qualifiedByName = "setProperties")
   KafkaCluster toKafkaCluster(ClustersProperties.Cluster clusterProperties);
 
@@ -69,10 +73,10 @@ public interface ClusterMapper {
   default TopicDetails toTopicDetails(InternalTopic topic, InternalClusterMetrics metrics) {
     final TopicDetails result = toTopicDetails(topic);
     result.setBytesInPerSec(
-        metrics.getBytesInPerSec().get(topic.getName())
+        toBigDecimal(metrics.getBytesInPerSec().get(topic.getName()))
     );
     result.setBytesOutPerSec(
-        metrics.getBytesOutPerSec().get(topic.getName())
+        toBigDecimal(metrics.getBytesOutPerSec().get(topic.getName()))
     );
     return result;
   }
@@ -108,14 +112,33 @@ public interface ClusterMapper {
         .collect(Collectors.toList());
   }
 
-  default BigDecimal sumMetrics(Map<String, BigDecimal> metrics) {
+  default BigDecimal sumMetrics(Map<String, Double> metrics) {
     if (metrics != null) {
-      return metrics.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+      return BigDecimal.valueOf(metrics.values().stream().mapToDouble(Double::doubleValue).sum());
     } else {
       return BigDecimal.ZERO;
     }
   }
 
+  default Metric toMetric(InternalMetric metric) {
+    final Map<String, BigDecimal> value = new HashMap<>();
+    for (int i = 0; i < metric.getValueNames().length; i++) {
+      final double v = metric.getValues()[i];
+      if (!Double.isNaN(v) && !Double.isInfinite(v)) {
+        value.put(metric.getValueNames()[i], BigDecimal.valueOf(v));
+      }
+    }
+    return new Metric()
+        .name(metric.getName())
+        .canonicalName(metric.getCanonicalName())
+        .params(metric.getParams())
+        .value(value);
+  }
+
+  default BigDecimal toBigDecimal(Double value) {
+    return value != null ? BigDecimal.valueOf(value) : null;
+  }
+
   default Path resolvePath(String path) {
     if (path != null) {
       return Path.of(path);
@@ -124,6 +147,14 @@ public interface ClusterMapper {
     }
   }
 
+  default List<Path> resolvePaths(List<String> paths) {
+    if (paths != null) {
+      return paths.stream().map(Path::of).collect(Collectors.toList());
+    } else {
+      return List.of();
+    }
+  }
+
   default Properties setProperties(Properties properties) {
     Properties copy = new Properties();
     if (properties != null) {
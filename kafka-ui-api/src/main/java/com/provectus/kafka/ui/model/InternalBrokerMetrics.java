@@ -7,5 +7,6 @@ import lombok.Data;
 @Data
 @Builder(toBuilder = true)
 public class InternalBrokerMetrics {
-  private final List<Metric> metrics;
+  private final List<InternalMetric> metrics;
+  private final String jmxError;
 }
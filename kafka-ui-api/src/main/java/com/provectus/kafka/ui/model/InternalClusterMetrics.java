@@ -1,6 +1,5 @@
 package com.provectus.kafka.ui.model;
 
-import java.math.BigDecimal;
 import java.util.List;
 import java.util.Map;
 import lombok.Builder;
@@ -19,12 +18,13 @@ public class InternalClusterMetrics {
   private final int offlinePartitionCount;
   private final int inSyncReplicasCount;
   private final int outOfSyncReplicasCount;
-  private final Map<String, BigDecimal> bytesInPerSec;
-  private final Map<String, BigDecimal> bytesOutPerSec;
+  private final Map<String, Double> bytesInPerSec;
+  private final Map<String, Double> bytesOutPerSec;
   private final long segmentCount;
   private final long segmentSize;
   private final Map<Integer, InternalBrokerDiskUsage> internalBrokerDiskUsage;
   private final Map<Integer, InternalBrokerMetrics> internalBrokerMetrics;
-  private final List<Metric> metrics;
+  private final List<InternalMetric> metrics;
   private final int zooKeeperStatus;
+  private final Map<String, Long> refreshTimings;
 }
@@ -0,0 +1,23 @@
+package com.provectus.kafka.ui.model;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import lombok.Builder;
+import lombok.Data;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.Node;
+
+/**
+ * Cluster state fetched once at the beginning of a metrics refresh and shared by
+ * all subsequent refresh stages.
+ */
+@Data
+@Builder(toBuilder = true)
+public class InternalClusterSnapshot {
+  private final Collection<Node> nodes;
+  private final Node controller;
+  // all topics of the cluster, only some of them are described on every refresh
+  private final Set<String> topicNames;
+  private final Map<String, TopicDescription> topicDescriptions;
+}
@@ -0,0 +1,26 @@
+package com.provectus.kafka.ui.model;
+
+import java.util.Map;
+import lombok.Data;
+
+/**
+ * Compact JMX metric representation. Names are interned and value names array is shared by
+ * metrics of the same MBean type, values are kept in primitive array (NaN if value is absent).
+ */
+@Data
+public class InternalMetric {
+  private final String name;
+  private final String canonicalName;
+  private final Map<String, String> params;
+  private final String[] valueNames;
+  private final double[] values;
+
+  public double getValue(String valueName) {
+    for (int i = 0; i < valueNames.length; i++) {
+      if (valueNames[i].equals(valueName)) {
+        return values[i];
+      }
+    }
+    return Double.NaN;
+  }
+}
@@ -0,0 +1,25 @@
+package com.provectus.kafka.ui.model;
+
+import java.time.Instant;
+import java.util.UUID;
+import lombok.Value;
+
+/**
+ * Version of cluster state snapshot, increased on every snapshot update. Versions are
+ * unique across clusters, so the latest version of all clusters changes when any of them
+ * is updated.
+ */
+@Value
+public class InternalSnapshotVersion {
+  // versions start over on every restart and differ between instances, so ETag is
+  // prefixed with id of this instance to never match ETag issued by another one
+  private static final String INSTANCE_ID =
+      Long.toString(UUID.randomUUID().getMostSignificantBits() & Long.MAX_VALUE, 36);
+
+  long version;
+  Instant timestamp;
+
+  public String getETag() {
+    return "\"" + INSTANCE_ID + "-" + version + "\"";
+  }
+}
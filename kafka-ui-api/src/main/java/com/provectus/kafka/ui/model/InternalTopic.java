@@ -1,6 +1,5 @@
 package com.provectus.kafka.ui.model;
 
-import java.util.List;
 import java.util.Map;
 import lombok.Builder;
 import lombok.Data;
@@ -12,7 +11,6 @@ public class InternalTopic {
   private final String name;
   private final boolean internal;
   private final Map<Integer, InternalPartition> partitions;
-  private final List<InternalTopicConfig> topicConfigs;
 
   private final int replicas;
   private final int partitionCount;
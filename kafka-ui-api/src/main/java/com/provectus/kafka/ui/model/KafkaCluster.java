@@ -25,7 +25,12 @@ public class KafkaCluster {
   private final Throwable lastZookeeperException;
   private final Path protobufFile;
   private final String protobufMessageName;
+  private final List<Path> protobufFiles;
+  private final Map<String, String> protobufMessageNameByTopic;
   private final Properties properties;
   private final Boolean readOnly;
   private final List<Feature> features;
+  private final InternalSnapshotVersion snapshotVersion;
+  // state is restored from snapshot saved before restart and is not refreshed yet
+  private final boolean stale;
 }
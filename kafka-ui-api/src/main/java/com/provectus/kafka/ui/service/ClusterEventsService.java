@@ -0,0 +1,119 @@
+package com.provectus.kafka.ui.service;
+
+import com.provectus.kafka.ui.exception.ClusterNotFoundException;
+import com.provectus.kafka.ui.mapper.ClusterMapper;
+import com.provectus.kafka.ui.model.ClusterEvent;
+import com.provectus.kafka.ui.model.InternalClusterMetrics;
+import com.provectus.kafka.ui.model.InternalTopic;
+import com.provectus.kafka.ui.model.KafkaCluster;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+/**
+ * Streams cluster state changes computed as diffs between stored cluster snapshots.
+ * Updates coming faster than coalescing period are merged, and slow subscriber gets only
+ * the latest snapshot, so its next diff covers all skipped updates. Subscribers at the same
+ * snapshots share computed diffs.
+ */
+@Service
+@RequiredArgsConstructor
+@Log4j2
+public class ClusterEventsService {
+
+  private static final Duration COALESCING_PERIOD = Duration.ofSeconds(1);
+  private static final int DIFFS_CACHE_SIZE = 64;
+
+  private final ClustersStorage clustersStorage;
+  private final ClusterMapper clusterMapper;
+
+  // "from version -> to version" -> events
+  private final Map<String, List<ClusterEvent>> diffs = Collections.synchronizedMap(
+      new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, List<ClusterEvent>> eldest) {
+          return size() > DIFFS_CACHE_SIZE;
+        }
+      });
+
+  public Flux<ClusterEvent> getEvents(String clusterName) {
+    final KafkaCluster current = clustersStorage.getClusterByName(clusterName)
+        .orElseThrow(ClusterNotFoundException::new);
+    return clustersStorage.getSnapshots()
+        .filter(c -> clusterName.equals(c.getName()))
+        .sample(COALESCING_PERIOD)
+        .onBackpressureLatest()
+        .scan(Tuples.of(current, current), (pair, next) -> Tuples.of(pair.getT2(), next))
+        .skip(1)
+        .concatMapIterable(this::diff)
+        .startWith(statusEvent(current));
+  }
+
+  private List<ClusterEvent> diff(Tuple2<KafkaCluster, KafkaCluster> snapshots) {
+    final KafkaCluster from = snapshots.getT1();
+    final KafkaCluster to = snapshots.getT2();
+    final String key = from.getSnapshotVersion().getVersion() + "->"
+        + to.getSnapshotVersion().getVersion();
+    return diffs.computeIfAbsent(key, k -> computeDiff(from, to));
+  }
+
+  private List<ClusterEvent> computeDiff(KafkaCluster from, KafkaCluster to) {
+    final List<ClusterEvent> events = new ArrayList<>();
+    if (from.getStatus() != to.getStatus()) {
+      events.add(statusEvent(to));
+    }
+    final Map<String, InternalTopic> fromTopics =
+        Objects.requireNonNullElse(from.getTopics(), Map.of());
+    final Map<String, InternalTopic> toTopics =
+        Objects.requireNonNullElse(to.getTopics(), Map.of());
+    if (fromTopics != toTopics) {
+      for (Map.Entry<String, InternalTopic> entry : toTopics.entrySet()) {
+        final InternalTopic previous = fromTopics.get(entry.getKey());
+        if (previous == null) {
+          events.add(event(to, ClusterEvent.TypeEnum.TOPIC_ADDED).topicName(entry.getKey()));
+        } else if (previous != entry.getValue()
+            && !KafkaService.sameMetadata(previous, entry.getValue())) {
+          // partition leaders, replicas or ISR are changed, offsets and segments are not
+          // compared since they change on every refresh
+          events.add(event(to, ClusterEvent.TypeEnum.TOPIC_CHANGED).topicName(entry.getKey()));
+        }
+      }
+      for (String topic : fromTopics.keySet()) {
+        if (!toTopics.containsKey(topic)) {
+          events.add(event(to, ClusterEvent.TypeEnum.TOPIC_REMOVED).topicName(topic));
+        }
+      }
+    }
+    if (to.getMetrics() != null
+        && !Objects.equals(withoutTimings(from.getMetrics()), withoutTimings(to.getMetrics()))) {
+      events.add(event(to, ClusterEvent.TypeEnum.STATS)
+          .stats(clusterMapper.toClusterStats(to.getMetrics())));
+    }
+    return events;
+  }
+
+  // refresh timings differ on every refresh, they are not a change of cluster stats
+  private static InternalClusterMetrics withoutTimings(InternalClusterMetrics metrics) {
+    return metrics != null ? metrics.toBuilder().refreshTimings(null).build() : null;
+  }
+
+  private ClusterEvent statusEvent(KafkaCluster cluster) {
+    return event(cluster, ClusterEvent.TypeEnum.STATUS).status(cluster.getStatus());
+  }
+
+  private static ClusterEvent event(KafkaCluster cluster, ClusterEvent.TypeEnum type) {
+    return new ClusterEvent()
+        .type(type)
+        .version(cluster.getSnapshotVersion().getVersion());
+  }
+}
@@ -11,9 +11,13 @@ import com.provectus.kafka.ui.model.ClusterStats;
 import com.provectus.kafka.ui.model.ConsumerGroup;
 import com.provectus.kafka.ui.model.ConsumerGroupDetails;
 import com.provectus.kafka.ui.model.ConsumerPosition;
+import com.provectus.kafka.ui.model.InternalSnapshotVersion;
 import com.provectus.kafka.ui.model.InternalTopic;
 import com.provectus.kafka.ui.model.KafkaCluster;
+import com.provectus.kafka.ui.model.MessageFilterType;
+import com.provectus.kafka.ui.model.SortOrder;
 import com.provectus.kafka.ui.model.Topic;
+import com.provectus.kafka.ui.model.TopicColumnsToSort;
 import com.provectus.kafka.ui.model.TopicConfig;
 import com.provectus.kafka.ui.model.TopicConsumerGroups;
 import com.provectus.kafka.ui.model.TopicCreation;
@@ -22,12 +26,14 @@ import com.provectus.kafka.ui.model.TopicMessage;
 import com.provectus.kafka.ui.model.TopicUpdate;
 import com.provectus.kafka.ui.model.TopicsResponse;
 import com.provectus.kafka.ui.util.ClusterUtil;
+import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import lombok.RequiredArgsConstructor;
@@ -47,12 +53,27 @@ public class ClusterService {
   private final ClusterMapper clusterMapper;
   private final KafkaService kafkaService;
   private final ConsumingService consumingService;
+  private final OffsetsService offsetsService;
+  private final TopicConfigsService topicConfigsService;
+  // rebuilt when cluster topics or metrics are refreshed
+  private final Map<String, TopicsIndex> topicsIndexes = new ConcurrentHashMap<>();
+  private final Map<String, Map.Entry<InternalSnapshotVersion, Object>> renderedSnapshots =
+      new ConcurrentHashMap<>();
 
   public List<Cluster> getClusters() {
-    return clustersStorage.getKafkaClusters()
-        .stream()
-        .map(clusterMapper::toCluster)
-        .collect(Collectors.toList());
+    return rendered("", clustersStorage.getSnapshotVersion().orElse(null),
+        () -> clustersStorage.getKafkaClusters()
+            .stream()
+            .map(clusterMapper::toCluster)
+            .collect(Collectors.toList()));
+  }
+
+  public Optional<InternalSnapshotVersion> getSnapshotVersion() {
+    return clustersStorage.getSnapshotVersion();
+  }
+
+  public Optional<InternalSnapshotVersion> getSnapshotVersion(String clusterName) {
+    return clustersStorage.getClusterByName(clusterName).map(KafkaCluster::getSnapshotVersion);
   }
 
   public Mono<BrokerMetrics> getBrokerMetrics(String name, Integer id) {
@@ -65,65 +86,100 @@ public class ClusterService {
   public Mono<ClusterStats> getClusterStats(String name) {
     return Mono.justOrEmpty(
         clustersStorage.getClusterByName(name)
-            .map(KafkaCluster::getMetrics)
-            .map(clusterMapper::toClusterStats)
+            .filter(c -> c.getMetrics() != null)
+            .map(c -> rendered(name + "/stats", c.getSnapshotVersion(),
+                () -> clusterMapper.toClusterStats(c.getMetrics())))
     );
   }
 
   public Mono<ClusterMetrics> getClusterMetrics(String name) {
     return Mono.justOrEmpty(
         clustersStorage.getClusterByName(name)
-            .map(KafkaCluster::getMetrics)
-            .map(clusterMapper::toClusterMetrics)
+            .filter(c -> c.getMetrics() != null)
+            .map(c -> rendered(name + "/metrics", c.getSnapshotVersion(),
+                () -> clusterMapper.toClusterMetrics(c.getMetrics())))
     );
   }
 
+  /**
+   * Returns DTO rendered from the same snapshot version before, or renders and caches it.
+   * Cached DTOs are shared between requests and must not be modified.
+   */
+  @SuppressWarnings("unchecked")
+  private <T> T rendered(String key, InternalSnapshotVersion version, Supplier<T> renderer) {
+    if (version == null) {
+      return renderer.get();
+    }
+    return (T) renderedSnapshots.compute(key, (k, cached) ->
+        cached != null && cached.getKey().equals(version)
+            ? cached : new SimpleImmutableEntry<>(version, renderer.get())
+    ).getValue();
+  }
+
 
   public TopicsResponse getTopics(String name, Optional<Integer> page,
                                   Optional<Integer> nullablePerPage) {
+    return getTopics(name, page, nullablePerPage, Optional.empty(), Optional.empty(),
+        Optional.empty(), Optional.empty());
+  }
+
+  public TopicsResponse getTopics(String name, Optional<Integer> page,
+                                  Optional<Integer> nullablePerPage,
+                                  Optional<String> search,
+                                  Optional<Boolean> showInternal,
+                                  Optional<TopicColumnsToSort> orderBy,
+                                  Optional<SortOrder> sortOrder) {
     Predicate<Integer> positiveInt = i -> i > 0;
     int perPage = nullablePerPage.filter(positiveInt).orElse(DEFAULT_PAGE_SIZE);
     var topicsToSkip = (page.filter(positiveInt).orElse(1) - 1) * perPage;
     var cluster = clustersStorage.getClusterByName(name)
         .orElseThrow(ClusterNotFoundException::new);
-    var totalPages = (cluster.getTopics().size() / perPage)
-        + (cluster.getTopics().size() % perPage == 0 ? 0 : 1);
+    var topics = getTopicsIndex(name, cluster).find(
+        search.orElse(null),
+        showInternal.orElse(true),
+        orderBy.orElse(TopicColumnsToSort.NAME),
+        sortOrder.orElse(SortOrder.ASC)
+    );
+    var totalPages = (topics.size() / perPage)
+        + (topics.size() % perPage == 0 ? 0 : 1);
     return new TopicsResponse()
         .pageCount(totalPages)
         .topics(
-            cluster.getTopics().values().stream()
-                .sorted(Comparator.comparing(InternalTopic::getName))
-                .skip(topicsToSkip)
-                .limit(perPage)
+            topics.subList(Math.min(topicsToSkip, topics.size()),
+                Math.min(topicsToSkip + perPage, topics.size())).stream()
                 .map(clusterMapper::toTopic)
                 .collect(Collectors.toList())
         );
   }
 
-  public Optional<TopicDetails> getTopicDetails(String name, String topicName) {
-    return clustersStorage.getClusterByName(name)
+  private TopicsIndex getTopicsIndex(String clusterName, KafkaCluster cluster) {
+    return topicsIndexes.compute(clusterName, (name, index) ->
+        index != null && index.isBuiltFrom(cluster.getTopics(), cluster.getMetrics())
+            ? index : new TopicsIndex(cluster.getTopics(), cluster.getMetrics()));
+  }
+
+  public Mono<TopicDetails> getTopicDetails(String name, String topicName) {
+    return Mono.justOrEmpty(clustersStorage.getClusterByName(name))
         .flatMap(c ->
-            Optional.ofNullable(
-                c.getTopics().get(topicName)
-            ).map(
-                t -> t.toBuilder().partitions(
-                    kafkaService.getTopicPartitions(c, t)
-                ).build()
-            ).map(t -> clusterMapper.toTopicDetails(t, c.getMetrics()))
+            Mono.justOrEmpty(c.getTopics().get(topicName))
+                .flatMap(t -> kafkaService.getTopicPartitions(c, t)
+                    .map(p -> t.toBuilder().partitions(p).build())
+                ).map(t -> clusterMapper.toTopicDetails(t, c.getMetrics()))
         );
   }
 
-  public Optional<List<TopicConfig>> getTopicConfigs(String name, String topicName) {
-    return clustersStorage.getClusterByName(name)
-        .map(KafkaCluster::getTopics)
-        .map(t -> t.get(topicName))
-        .map(t -> t.getTopicConfigs().stream().map(clusterMapper::toTopicConfig)
+  public Mono<List<TopicConfig>> getTopicConfigs(String name, String topicName) {
+    return Mono.justOrEmpty(clustersStorage.getClusterByName(name))
+        .filter(c -> c.getTopics() != null && c.getTopics().containsKey(topicName))
+        .flatMap(c -> topicConfigsService.getTopicConfigs(c, topicName))
+        .map(configs -> configs.stream().map(clusterMapper::toTopicConfig)
             .collect(Collectors.toList()));
   }
 
   public Mono<Topic> createTopic(String clusterName, Mono<TopicCreation> topicCreation) {
     return clustersStorage.getClusterByName(clusterName).map(cluster ->
         kafkaService.createTopic(cluster, topicCreation)
+            .doOnNext(t -> topicConfigsService.invalidate(cluster, t.getName()))
             .doOnNext(t -> updateCluster(t, clusterName, cluster))
             .map(clusterMapper::toTopic)
     ).orElse(Mono.empty());
@@ -138,9 +194,11 @@ public class ClusterService {
         ac.getAdminClient().describeConsumerGroups(Collections.singletonList(consumerGroupId)).all()
     ).flatMap(groups ->
         kafkaService.groupMetadata(cluster, consumerGroupId)
-            .flatMap(offsets -> {
-              Map<TopicPartition, Long> endOffsets =
-                  kafkaService.topicPartitionsEndOffsets(cluster, offsets.keySet());
+            .flatMap(offsets ->
+                offsetsService.getLatestOffsets(cluster, offsets.keySet())
+                    .map(endOffsets -> Tuples.of(offsets, endOffsets))
+            ).flatMap(offsets -> {
+              Map<TopicPartition, Long> endOffsets = offsets.getT2();
               return ClusterUtil.toMono(groups).map(s ->
                   Tuples.of(
                       s.get(consumerGroupId),
@@ -148,7 +206,7 @@ public class ClusterService {
                           .flatMap(c ->
                               Stream.of(
                                   ClusterUtil.convertToConsumerTopicPartitionDetails(
-                                      c, offsets, endOffsets, consumerGroupId
+                                      c, offsets.getT1(), endOffsets, consumerGroupId
                                   )
                               )
                           )
@@ -194,6 +252,7 @@ public class ClusterService {
     return clustersStorage.getClusterByName(clusterName).map(cl ->
         topicUpdate
             .flatMap(t -> kafkaService.updateTopic(cl, topicName, t))
+            .doOnNext(t -> topicConfigsService.invalidate(cl, topicName))
             .doOnNext(t -> updateCluster(t, clusterName, cl))
             .map(clusterMapper::toTopic)
     ).orElse(Mono.empty());
@@ -202,9 +261,12 @@ public class ClusterService {
   public Mono<Void> deleteTopic(String clusterName, String topicName) {
     var cluster = clustersStorage.getClusterByName(clusterName)
         .orElseThrow(ClusterNotFoundException::new);
-    var topic = getTopicDetails(clusterName, topicName)
-        .orElseThrow(TopicNotFoundException::new);
-    return kafkaService.deleteTopic(cluster, topic.getName())
+    if (!cluster.getTopics().containsKey(topicName)) {
+      throw new TopicNotFoundException();
+    }
+    return kafkaService.deleteTopic(cluster, topicName)
+        .doOnSuccess(v -> offsetsService.invalidate(cluster, topicName))
+        .doOnSuccess(v -> topicConfigsService.invalidate(cluster, topicName))
         .doOnNext(t -> updateCluster(topicName, clusterName, cluster));
   }
 
@@ -224,9 +286,35 @@ public class ClusterService {
 
   public Flux<TopicMessage> getMessages(String clusterName, String topicName,
                                         ConsumerPosition consumerPosition, String query,
-                                        Integer limit) {
+                                        MessageFilterType filterType, Integer limit,
+                                        Long toTimestamp) {
+    return clustersStorage.getClusterByName(clusterName)
+        .map(c -> consumingService.loadMessages(
+            c, topicName, consumerPosition, query, filterType, limit, toTimestamp))
+        .orElse(Flux.empty());
+  }
+
+  public Flux<TopicMessage> streamMessages(String clusterName, String topicName,
+                                           ConsumerPosition consumerPosition, String query,
+                                           MessageFilterType filterType, Integer limit,
+                                           Long toTimestamp) {
+    return clustersStorage.getClusterByName(clusterName)
+        .map(c -> consumingService.streamMessages(
+            c, topicName, consumerPosition, query, filterType, limit, toTimestamp))
+        .orElse(Flux.empty());
+  }
+
+  public Mono<TopicMessage> getMessage(String clusterName, String topicName,
+                                       int partition, long offset) {
+    return clustersStorage.getClusterByName(clusterName)
+        .map(c -> consumingService.getMessage(c, topicName, partition, offset))
+        .orElse(Mono.error(ClusterNotFoundException::new));
+  }
+
+  public Flux<TopicMessage> tailMessages(String clusterName, String topicName, String query,
+                                         MessageFilterType filterType) {
     return clustersStorage.getClusterByName(clusterName)
-        .map(c -> consumingService.loadMessages(c, topicName, consumerPosition, query, limit))
+        .map(c -> consumingService.tailMessages(c, topicName, query, filterType))
         .orElse(Flux.empty());
   }
 
@@ -238,7 +326,8 @@ public class ClusterService {
       throw new TopicNotFoundException();
     }
     return consumingService.offsetsForDeletion(cluster, topicName, partitions)
-        .flatMap(offsets -> kafkaService.deleteTopicMessages(cluster, offsets));
+        .flatMap(offsets -> kafkaService.deleteTopicMessages(cluster, offsets))
+        .doOnSuccess(v -> offsetsService.invalidate(cluster, topicName));
   }
 
 
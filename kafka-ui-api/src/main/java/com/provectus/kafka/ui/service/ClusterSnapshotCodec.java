@@ -0,0 +1,329 @@
+package com.provectus.kafka.ui.service;
+
+import com.provectus.kafka.ui.model.InternalBrokerDiskUsage;
+import com.provectus.kafka.ui.model.InternalBrokerMetrics;
+import com.provectus.kafka.ui.model.InternalClusterMetrics;
+import com.provectus.kafka.ui.model.InternalMetric;
+import com.provectus.kafka.ui.model.InternalPartition;
+import com.provectus.kafka.ui.model.InternalReplica;
+import com.provectus.kafka.ui.model.InternalTopic;
+import com.provectus.kafka.ui.model.InternalTopicConfig;
+import com.provectus.kafka.ui.model.KafkaCluster;
+import com.provectus.kafka.ui.model.ServerStatus;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.Value;
+
+/**
+ * Compact binary form of cluster state (status, metrics, topics metadata and topic configs
+ * cached at the moment). Configuration fields are not written, they are taken from application
+ * config on load. Decoded metric names
+ * are interned and value names arrays are shared, like in freshly scraped metrics.
+ * Format version should be increased on any layout change, snapshots of other versions
+ * are rejected.
+ */
+class ClusterSnapshotCodec {
+
+  private static final int MAGIC = 0x4b554953;
+  private static final int FORMAT_VERSION = 3;
+
+  private final Map<List<String>, String[]> valueNames = new HashMap<>();
+
+  void write(DataOutput out, KafkaCluster cluster,
+             Map<String, List<InternalTopicConfig>> topicConfigs) throws IOException {
+    out.writeInt(MAGIC);
+    out.writeInt(FORMAT_VERSION);
+    writeString(out, cluster.getName());
+    writeString(out, cluster.getBootstrapServers());
+    writeNullable(out, cluster.getStatus(), (o, s) -> writeString(o, s.name()));
+    writeNullable(out, cluster.getZookeeperStatus(), (o, s) -> writeString(o, s.name()));
+    writeNullable(out, cluster.getMetrics(), this::writeMetrics);
+    writeNullable(out, cluster.getTopics(),
+        (o, topics) -> writeMap(o, topics, ClusterSnapshotCodec::writeString, this::writeTopic));
+    writeMap(out, topicConfigs, ClusterSnapshotCodec::writeString,
+        (o, configs) -> writeList(o, configs, ClusterSnapshotCodec::writeTopicConfig));
+  }
+
+  /**
+   * Reads cluster state, returned cluster has only name, bootstrap servers and state fields.
+   */
+  Snapshot read(DataInput in) throws IOException {
+    if (in.readInt() != MAGIC) {
+      throw new IOException("Not a cluster snapshot");
+    }
+    final int version = in.readInt();
+    if (version != FORMAT_VERSION) {
+      throw new IOException("Unsupported snapshot format version " + version);
+    }
+    final KafkaCluster cluster = KafkaCluster.builder()
+        .name(readString(in))
+        .bootstrapServers(readString(in))
+        .status(readNullable(in, i -> ServerStatus.valueOf(readString(i))))
+        .zookeeperStatus(readNullable(in, i -> ServerStatus.valueOf(readString(i))))
+        .metrics(readNullable(in, this::readMetrics))
+        .topics(readNullable(in, i -> readMap(i, new HashMap<>(),
+            ClusterSnapshotCodec::readString, this::readTopic)))
+        .build();
+    final Map<String, List<InternalTopicConfig>> topicConfigs = readMap(in, new HashMap<>(),
+        ClusterSnapshotCodec::readString,
+        i -> readList(i, ClusterSnapshotCodec::readTopicConfig));
+    return new Snapshot(cluster, topicConfigs);
+  }
+
+  private void writeMetrics(DataOutput out, InternalClusterMetrics metrics) throws IOException {
+    out.writeInt(metrics.getBrokerCount());
+    out.writeInt(metrics.getTopicCount());
+    out.writeInt(metrics.getActiveControllers());
+    out.writeInt(metrics.getUncleanLeaderElectionCount());
+    out.writeInt(metrics.getOnlinePartitionCount());
+    out.writeInt(metrics.getUnderReplicatedPartitionCount());
+    out.writeInt(metrics.getOfflinePartitionCount());
+    out.writeInt(metrics.getInSyncReplicasCount());
+    out.writeInt(metrics.getOutOfSyncReplicasCount());
+    writeNullable(out, metrics.getBytesInPerSec(),
+        (o, m) -> writeMap(o, m, ClusterSnapshotCodec::writeString, DataOutput::writeDouble));
+    writeNullable(out, metrics.getBytesOutPerSec(),
+        (o, m) -> writeMap(o, m, ClusterSnapshotCodec::writeString, DataOutput::writeDouble));
+    out.writeLong(metrics.getSegmentCount());
+    out.writeLong(metrics.getSegmentSize());
+    writeNullable(out, metrics.getInternalBrokerDiskUsage(),
+        (o, m) -> writeMap(o, m, DataOutput::writeInt, (o2, usage) -> {
+          o2.writeLong(usage.getSegmentCount());
+          o2.writeLong(usage.getSegmentSize());
+        }));
+    writeNullable(out, metrics.getInternalBrokerMetrics(),
+        (o, m) -> writeMap(o, m, DataOutput::writeInt, (o2, broker) -> {
+          writeNullable(o2, broker.getMetrics(), (o3, l) -> writeList(o3, l, this::writeMetric));
+          writeNullable(o2, broker.getJmxError(), ClusterSnapshotCodec::writeString);
+        }));
+    writeNullable(out, metrics.getMetrics(), (o, l) -> writeList(o, l, this::writeMetric));
+    out.writeInt(metrics.getZooKeeperStatus());
+    writeNullable(out, metrics.getRefreshTimings(),
+        (o, m) -> writeMap(o, m, ClusterSnapshotCodec::writeString, DataOutput::writeLong));
+  }
+
+  private InternalClusterMetrics readMetrics(DataInput in) throws IOException {
+    return InternalClusterMetrics.builder()
+        .brokerCount(in.readInt())
+        .topicCount(in.readInt())
+        .activeControllers(in.readInt())
+        .uncleanLeaderElectionCount(in.readInt())
+        .onlinePartitionCount(in.readInt())
+        .underReplicatedPartitionCount(in.readInt())
+        .offlinePartitionCount(in.readInt())
+        .inSyncReplicasCount(in.readInt())
+        .outOfSyncReplicasCount(in.readInt())
+        .bytesInPerSec(readNullable(in, i -> readMap(i, new LinkedHashMap<>(),
+            ClusterSnapshotCodec::readString, DataInput::readDouble)))
+        .bytesOutPerSec(readNullable(in, i -> readMap(i, new LinkedHashMap<>(),
+            ClusterSnapshotCodec::readString, DataInput::readDouble)))
+        .segmentCount(in.readLong())
+        .segmentSize(in.readLong())
+        .internalBrokerDiskUsage(readNullable(in, i -> readMap(i, new LinkedHashMap<>(),
+            DataInput::readInt, i2 -> InternalBrokerDiskUsage.builder()
+                .segmentCount(i2.readLong())
+                .segmentSize(i2.readLong())
+                .build())))
+        .internalBrokerMetrics(readNullable(in, i -> readMap(i, new LinkedHashMap<>(),
+            DataInput::readInt, i2 -> InternalBrokerMetrics.builder()
+                .metrics(readNullable(i2, i3 -> readList(i3, this::readMetric)))
+                .jmxError(readNullable(i2, ClusterSnapshotCodec::readString))
+                .build())))
+        .metrics(readNullable(in, i -> readList(i, this::readMetric)))
+        .zooKeeperStatus(in.readInt())
+        .refreshTimings(readNullable(in, i -> readMap(i, new LinkedHashMap<>(),
+            ClusterSnapshotCodec::readString, DataInput::readLong)))
+        .build();
+  }
+
+  private void writeMetric(DataOutput out, InternalMetric metric) throws IOException {
+    writeString(out, metric.getName());
+    writeString(out, metric.getCanonicalName());
+    writeNullable(out, metric.getParams(), (o, m) ->
+        writeMap(o, m, ClusterSnapshotCodec::writeString, ClusterSnapshotCodec::writeString));
+    out.writeInt(metric.getValueNames().length);
+    for (String valueName : metric.getValueNames()) {
+      writeString(out, valueName);
+    }
+    for (double value : metric.getValues()) {
+      out.writeDouble(value);
+    }
+  }
+
+  private InternalMetric readMetric(DataInput in) throws IOException {
+    final String name = readString(in).intern();
+    final String canonicalName = readString(in);
+    final Map<String, String> params = readNullable(in, i -> readMap(i, new LinkedHashMap<>(),
+        i2 -> readString(i2).intern(), ClusterSnapshotCodec::readString));
+    final String[] names = new String[in.readInt()];
+    for (int i = 0; i < names.length; i++) {
+      names[i] = readString(in).intern();
+    }
+    final double[] values = new double[names.length];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = in.readDouble();
+    }
+    return new InternalMetric(name, canonicalName, params,
+        valueNames.computeIfAbsent(Arrays.asList(names), k -> names), values);
+  }
+
+  private void writeTopic(DataOutput out, InternalTopic topic) throws IOException {
+    writeString(out, topic.getName());
+    out.writeBoolean(topic.isInternal());
+    writeNullable(out, topic.getPartitions(),
+        (o, m) -> writeMap(o, m, DataOutput::writeInt, this::writePartition));
+    out.writeInt(topic.getReplicas());
+    out.writeInt(topic.getPartitionCount());
+    out.writeInt(topic.getInSyncReplicas());
+    out.writeInt(topic.getReplicationFactor());
+    out.writeInt(topic.getUnderReplicatedPartitions());
+    out.writeLong(topic.getSegmentSize());
+    out.writeLong(topic.getSegmentCount());
+  }
+
+  private InternalTopic readTopic(DataInput in) throws IOException {
+    return InternalTopic.builder()
+        .name(readString(in))
+        .internal(in.readBoolean())
+        .partitions(readNullable(in, i -> readMap(i, new LinkedHashMap<>(),
+            DataInput::readInt, this::readPartition)))
+        .replicas(in.readInt())
+        .partitionCount(in.readInt())
+        .inSyncReplicas(in.readInt())
+        .replicationFactor(in.readInt())
+        .underReplicatedPartitions(in.readInt())
+        .segmentSize(in.readLong())
+        .segmentCount(in.readLong())
+        .build();
+  }
+
+  private void writePartition(DataOutput out, InternalPartition partition) throws IOException {
+    out.writeInt(partition.getPartition());
+    writeNullable(out, partition.getLeader(), DataOutput::writeInt);
+    writeNullable(out, partition.getReplicas(), (o, l) -> writeList(o, l, (o2, replica) -> {
+      o2.writeInt(replica.getBroker());
+      o2.writeBoolean(replica.isLeader());
+      o2.writeBoolean(replica.isInSync());
+    }));
+    out.writeInt(partition.getInSyncReplicasCount());
+    out.writeInt(partition.getReplicasCount());
+    out.writeLong(partition.getOffsetMin());
+    out.writeLong(partition.getOffsetMax());
+    out.writeLong(partition.getSegmentSize());
+    out.writeLong(partition.getSegmentCount());
+  }
+
+  private InternalPartition readPartition(DataInput in) throws IOException {
+    return InternalPartition.builder()
+        .partition(in.readInt())
+        .leader(readNullable(in, DataInput::readInt))
+        .replicas(readNullable(in, i -> readList(i, i2 ->
+            new InternalReplica(i2.readInt(), i2.readBoolean(), i2.readBoolean()))))
+        .inSyncReplicasCount(in.readInt())
+        .replicasCount(in.readInt())
+        .offsetMin(in.readLong())
+        .offsetMax(in.readLong())
+        .segmentSize(in.readLong())
+        .segmentCount(in.readLong())
+        .build();
+  }
+
+  private static void writeTopicConfig(DataOutput out, InternalTopicConfig config)
+      throws IOException {
+    writeString(out, config.getName());
+    writeNullable(out, config.getValue(), ClusterSnapshotCodec::writeString);
+    writeNullable(out, config.getDefaultValue(), ClusterSnapshotCodec::writeString);
+  }
+
+  private static InternalTopicConfig readTopicConfig(DataInput in) throws IOException {
+    return InternalTopicConfig.builder()
+        .name(readString(in))
+        .value(readNullable(in, ClusterSnapshotCodec::readString))
+        .defaultValue(readNullable(in, ClusterSnapshotCodec::readString))
+        .build();
+  }
+
+  // writeUTF is limited to 64KB, which is not enough for some topic config values
+  private static void writeString(DataOutput out, String value) throws IOException {
+    final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(DataInput in) throws IOException {
+    final byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static <T> void writeNullable(DataOutput out, T value, Writer<T> writer)
+      throws IOException {
+    out.writeBoolean(value != null);
+    if (value != null) {
+      writer.write(out, value);
+    }
+  }
+
+  private static <T> T readNullable(DataInput in, Reader<T> reader) throws IOException {
+    return in.readBoolean() ? reader.read(in) : null;
+  }
+
+  private static <T> void writeList(DataOutput out, List<T> list, Writer<T> writer)
+      throws IOException {
+    out.writeInt(list.size());
+    for (T item : list) {
+      writer.write(out, item);
+    }
+  }
+
+  private static <T> List<T> readList(DataInput in, Reader<T> reader) throws IOException {
+    final int size = in.readInt();
+    final List<T> list = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      list.add(reader.read(in));
+    }
+    return list;
+  }
+
+  private static <K, V> void writeMap(DataOutput out, Map<K, V> map, Writer<K> keyWriter,
+                                      Writer<V> valueWriter) throws IOException {
+    out.writeInt(map.size());
+    for (Map.Entry<K, V> entry : map.entrySet()) {
+      keyWriter.write(out, entry.getKey());
+      valueWriter.write(out, entry.getValue());
+    }
+  }
+
+  private static <K, V> Map<K, V> readMap(DataInput in, Map<K, V> map, Reader<K> keyReader,
+                                          Reader<V> valueReader) throws IOException {
+    final int size = in.readInt();
+    for (int i = 0; i < size; i++) {
+      map.put(keyReader.read(in), valueReader.read(in));
+    }
+    return map;
+  }
+
+  @Value
+  static class Snapshot {
+    KafkaCluster cluster;
+    Map<String, List<InternalTopicConfig>> topicConfigs;
+  }
+
+  @FunctionalInterface
+  private interface Writer<T> {
+    void write(DataOutput out, T value) throws IOException;
+  }
+
+  @FunctionalInterface
+  private interface Reader<T> {
+    T read(DataInput in) throws IOException;
+  }
+}
@@ -0,0 +1,142 @@
+package com.provectus.kafka.ui.service;
+
+import com.provectus.kafka.ui.model.InternalTopicConfig;
+import com.provectus.kafka.ui.model.KafkaCluster;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps last state of every cluster in local files, so after restart clusters are shown
+ * with their last known topics, metrics and topic configs (marked as stale) until the first
+ * refresh finishes. Persisting is disabled if snapshots dir is blank.
+ */
+@Component
+@Log4j2
+public class ClusterSnapshotStore {
+
+  private static final String FILE_SUFFIX = ".snapshot";
+
+  // cluster name -> last persisted snapshot version
+  private final Map<String, Long> persistedVersions = new ConcurrentHashMap<>();
+  // cluster name -> restored topic configs, until they are taken by configs cache
+  private final Map<String, Map<String, List<InternalTopicConfig>>> restoredTopicConfigs =
+      new ConcurrentHashMap<>();
+
+  @Value("${kafka.snapshots.dir:${java.io.tmpdir}/kafka-ui-snapshots}")
+  private String snapshotsDir;
+
+  /**
+   * Restores state of configured cluster from its snapshot. Snapshot is ignored if it was
+   * saved for other bootstrap servers or can't be read.
+   */
+  public Optional<KafkaCluster> restore(KafkaCluster configured) {
+    if (isDisabled()) {
+      return Optional.empty();
+    }
+    final Path file = getFile(configured.getName());
+    if (!Files.exists(file)) {
+      return Optional.empty();
+    }
+    try (DataInputStream in = new DataInputStream(
+        new GZIPInputStream(new BufferedInputStream(Files.newInputStream(file))))) {
+      final ClusterSnapshotCodec.Snapshot snapshot = new ClusterSnapshotCodec().read(in);
+      final KafkaCluster saved = snapshot.getCluster();
+      if (!Objects.equals(saved.getBootstrapServers(), configured.getBootstrapServers())) {
+        log.info("Snapshot of cluster {} was saved for other bootstrap servers, ignoring it",
+            configured.getName());
+        return Optional.empty();
+      }
+      log.info("Cluster {} state restored from snapshot {}", configured.getName(), file);
+      restoredTopicConfigs.put(configured.getName(), snapshot.getTopicConfigs());
+      return Optional.of(configured.toBuilder()
+          .status(saved.getStatus())
+          .zookeeperStatus(saved.getZookeeperStatus())
+          .metrics(saved.getMetrics())
+          .topics(saved.getTopics())
+          .stale(true)
+          .build());
+    } catch (IOException | RuntimeException e) {
+      log.warn("Failed to restore cluster {} from snapshot {}", configured.getName(), file, e);
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Returns topic configs restored with cluster state, configs can be taken only once.
+   */
+  public Map<String, List<InternalTopicConfig>> takeRestoredTopicConfigs(String clusterName) {
+    return Optional.ofNullable(restoredTopicConfigs.remove(clusterName)).orElse(Map.of());
+  }
+
+  /**
+   * Writes snapshots of clusters updated since the last call. Stale clusters have nothing
+   * new to write, and clusters which were never refreshed have no state to write.
+   */
+  public void persist(Collection<KafkaCluster> clusters,
+                      Function<KafkaCluster, Map<String, List<InternalTopicConfig>>> topicConfigs) {
+    if (isDisabled()) {
+      return;
+    }
+    for (KafkaCluster cluster : clusters) {
+      final long version = cluster.getSnapshotVersion().getVersion();
+      if (cluster.isStale() || cluster.getTopics() == null
+          || Objects.equals(persistedVersions.get(cluster.getName()), version)) {
+        continue;
+      }
+      try {
+        write(cluster, topicConfigs.apply(cluster));
+        persistedVersions.put(cluster.getName(), version);
+      } catch (IOException | RuntimeException e) {
+        log.warn("Failed to write snapshot of cluster {}", cluster.getName(), e);
+      }
+    }
+  }
+
+  private void write(KafkaCluster cluster, Map<String, List<InternalTopicConfig>> topicConfigs)
+      throws IOException {
+    final Path file = getFile(cluster.getName());
+    Files.createDirectories(file.getParent());
+    // written to temporary file first, so a crash during write doesn't corrupt last snapshot
+    final Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), null);
+    try {
+      try (DataOutputStream out = new DataOutputStream(
+          new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp))))) {
+        new ClusterSnapshotCodec().write(out, cluster, topicConfigs);
+      }
+      Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(tmp);
+    }
+  }
+
+  private Path getFile(String clusterName) {
+    return Paths.get(snapshotsDir,
+        URLEncoder.encode(clusterName, StandardCharsets.UTF_8) + FILE_SUFFIX);
+  }
+
+  private boolean isDisabled() {
+    return snapshotsDir == null || snapshotsDir.isBlank();
+  }
+}
@@ -17,6 +17,14 @@ public class ClustersMetricsScheduler {
 
   private final MetricsUpdateService metricsUpdateService;
 
+  private final MetricsHistoryService metricsHistoryService;
+
+  private final ClusterSnapshotStore clusterSnapshotStore;
+
+  private final OffsetsService offsetsService;
+
+  private final TopicConfigsService topicConfigsService;
+
   @Scheduled(fixedRate = 30000)
   public void updateMetrics() {
     Flux.fromIterable(clustersStorage.getKafkaClustersMap().entrySet())
@@ -24,6 +32,15 @@ public class ClustersMetricsScheduler {
         .map(Map.Entry::getValue)
         .flatMap(metricsUpdateService::updateMetrics)
         .doOnNext(s -> clustersStorage.setKafkaCluster(s.getName(), s))
+        .doOnNext(metricsHistoryService::record)
+        .doOnNext(offsetsService::retainTopics)
         .subscribe();
   }
+
+  @Scheduled(fixedRateString = "${kafka.snapshots.persist-interval-ms:60000}",
+      initialDelayString = "${kafka.snapshots.persist-interval-ms:60000}")
+  public void persistSnapshots() {
+    clusterSnapshotStore.persist(clustersStorage.getKafkaClusters(),
+        topicConfigsService::getCachedConfigs);
+  }
 }
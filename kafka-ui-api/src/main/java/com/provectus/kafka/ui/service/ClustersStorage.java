@@ -3,23 +3,37 @@ package com.provectus.kafka.ui.service;
 import com.provectus.kafka.ui.config.ClustersProperties;
 import com.provectus.kafka.ui.mapper.ClusterMapper;
 import com.provectus.kafka.ui.model.Feature;
+import com.provectus.kafka.ui.model.InternalSnapshotVersion;
 import com.provectus.kafka.ui.model.KafkaCluster;
+import java.time.Instant;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.mapstruct.factory.Mappers;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.DirectProcessor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
 
 @Component
 @RequiredArgsConstructor
 public class ClustersStorage {
 
   private final Map<String, KafkaCluster> kafkaClusters = new ConcurrentHashMap<>();
+  private final AtomicLong snapshotVersions = new AtomicLong();
+  // hot stream of stored snapshots, subscribers handle their own back-pressure. Reactor 3.3
+  // used here has no Sinks API yet, on 3.4+ this becomes
+  // Sinks.many().multicast().directBestEffort()
+  private final DirectProcessor<KafkaCluster> snapshots = DirectProcessor.create();
+  private final FluxSink<KafkaCluster> snapshotsSink = snapshots.sink();
 
   private final ClustersProperties clusterProperties;
+  private final ClusterSnapshotStore clusterSnapshotStore;
 
   private final ClusterMapper clusterMapper = Mappers.getMapper(ClusterMapper.class);
 
@@ -31,10 +45,12 @@ public class ClustersStorage {
             "Application config isn't correct. Two clusters can't have the same name");
       }
       KafkaCluster cluster = clusterMapper.toKafkaCluster(clusterProperties);
+      cluster = clusterSnapshotStore.restore(cluster).orElse(cluster);
       kafkaClusters.put(
           clusterProperties.getName(),
           cluster.toBuilder()
               .features(Feature.getEnabledFeatures(cluster))
+              .snapshotVersion(nextSnapshotVersion())
               .build()
       );
     }
@@ -48,8 +64,33 @@ public class ClustersStorage {
     return Optional.ofNullable(kafkaClusters.get(clusterName));
   }
 
+  /**
+   * Stores new cluster snapshot, snapshot gets next version, so clients can check whether
+   * cluster state changed since their last request.
+   */
   public void setKafkaCluster(String key, KafkaCluster kafkaCluster) {
-    this.kafkaClusters.put(key, kafkaCluster);
+    final KafkaCluster snapshot = kafkaCluster.toBuilder()
+        .snapshotVersion(nextSnapshotVersion())
+        .build();
+    this.kafkaClusters.put(key, snapshot);
+    snapshotsSink.next(snapshot);
+  }
+
+  public Flux<KafkaCluster> getSnapshots() {
+    return snapshots;
+  }
+
+  /**
+   * Latest snapshot version of all clusters.
+   */
+  public Optional<InternalSnapshotVersion> getSnapshotVersion() {
+    return kafkaClusters.values().stream()
+        .map(KafkaCluster::getSnapshotVersion)
+        .max(Comparator.comparingLong(InternalSnapshotVersion::getVersion));
+  }
+
+  private InternalSnapshotVersion nextSnapshotVersion() {
+    return new InternalSnapshotVersion(snapshotVersions.incrementAndGet(), Instant.now());
   }
 
   public Map<String, KafkaCluster> getKafkaClustersMap() {
@@ -1,23 +1,37 @@
 package com.provectus.kafka.ui.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.provectus.kafka.ui.deserialization.DeserializationService;
 import com.provectus.kafka.ui.deserialization.RecordDeserializer;
+import com.provectus.kafka.ui.exception.MessageNotFoundException;
 import com.provectus.kafka.ui.model.ConsumerPosition;
 import com.provectus.kafka.ui.model.KafkaCluster;
+import com.provectus.kafka.ui.model.MessageFilterType;
 import com.provectus.kafka.ui.model.SeekType;
 import com.provectus.kafka.ui.model.TopicMessage;
+import com.provectus.kafka.ui.service.KafkaConsumerPool.FetchProfile;
 import com.provectus.kafka.ui.util.ClusterUtil;
+import com.provectus.kafka.ui.util.MessageFilter;
 import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.apache.commons.lang3.StringUtils;
@@ -27,11 +41,16 @@ import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
 import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.utils.Bytes;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.BufferOverflowStrategy;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.FluxSink;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
 
 @Service
 @Log4j2
@@ -40,34 +59,306 @@ public class ConsumingService {
 
   private static final int MAX_RECORD_LIMIT = 100;
   private static final int DEFAULT_RECORD_LIMIT = 20;
+  private static final int TAIL_BUFFER_SIZE = 1000;
+  private static final int FIND_RECORD_POLLS = 3;
+  private static final int DESERIALIZATION_CONCURRENCY = 32;
+  // poll batches requested from emitter ahead of processing
+  private static final int BATCH_PREFETCH = 2;
 
-  private final KafkaService kafkaService;
+  private final KafkaConsumerPool consumerPool;
   private final DeserializationService deserializationService;
-  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  private final Map<String, Flux<Tuple2<ConsumerRecord<Bytes, Bytes>, TopicMessage>>> tails =
+      new ConcurrentHashMap<>();
+
+  // number of partitions searched at the same time by unlimited forward searches
+  @Value("${kafka.messages.scan-concurrency:2}")
+  private int scanConcurrency;
+  // values larger than this are not deserialized, only their beginning is returned
+  @Value("${kafka.messages.max-content-size:262144}")
+  private int maxContentSize;
+  // loading without streaming stops when messages of this total size are collected
+  @Value("${kafka.messages.max-response-size:16777216}")
+  private long maxResponseSize;
+  // deserialization can block on schema registry calls, so it runs on its own bounded
+  // scheduler instead of non-blocking parallel one
+  @Value("${kafka.messages.deserialization-threads:16}")
+  private int deserializationThreads;
+
+  private Scheduler deserializationScheduler;
+
+  @PostConstruct
+  public void init() {
+    deserializationScheduler =
+        Schedulers.newBoundedElastic(deserializationThreads, Integer.MAX_VALUE, "deserialization");
+  }
+
+  @PreDestroy
+  public void close() {
+    deserializationScheduler.dispose();
+  }
 
   public Flux<TopicMessage> loadMessages(KafkaCluster cluster, String topic,
                                          ConsumerPosition consumerPosition, String query,
-                                         Integer limit) {
+                                         MessageFilterType filterType, Integer limit,
+                                         Long toTimestamp) {
     int recordsLimit = Optional.ofNullable(limit)
         .map(s -> Math.min(s, MAX_RECORD_LIMIT))
         .orElse(DEFAULT_RECORD_LIMIT);
-    RecordEmitter emitter = new RecordEmitter(
-        () -> kafkaService.createConsumer(cluster),
-        new OffsetsSeek(topic, consumerPosition));
+    return readMessages(cluster, topic, consumerPosition, query, filterType, recordsLimit,
+        toTimestamp, maxResponseSize, false);
+  }
+
+  /**
+   * Same as loadMessages, but without records limit cap, so should be consumed as a stream.
+   * Records are polled from kafka only when there is demand from downstream, so at most one
+   * poll batch is buffered regardless of the number of messages read. Stream can last long,
+   * so it reads with dedicated consumers instead of holding pooled ones needed for browsing.
+   */
+  public Flux<TopicMessage> streamMessages(KafkaCluster cluster, String topic,
+                                           ConsumerPosition consumerPosition, String query,
+                                           MessageFilterType filterType, Integer limit,
+                                           Long toTimestamp) {
+    long recordsLimit = Optional.ofNullable(limit).map(Integer::longValue).orElse(Long.MAX_VALUE);
+    return readMessages(cluster, topic, consumerPosition, query, filterType, recordsLimit,
+        toTimestamp, Long.MAX_VALUE, true);
+  }
+
+  private Flux<TopicMessage> readMessages(KafkaCluster cluster, String topic,
+                                          ConsumerPosition consumerPosition, String query,
+                                          MessageFilterType filterType, long recordsLimit,
+                                          Long toTimestamp, long responseSizeLimit,
+                                          boolean dedicatedConsumers) {
     RecordDeserializer recordDeserializer =
         deserializationService.getRecordDeserializerForCluster(cluster);
+    MessageFilter filter = MessageFilter.compile(query, filterType);
+    SearchStats stats = new SearchStats();
+    // single page without search needs only a few small fetches, other requests scan
+    // many records and are read with larger polls
+    FetchProfile fetchProfile = StringUtils.isBlank(query) && recordsLimit <= MAX_RECORD_LIMIT
+        ? FetchProfile.INTERACTIVE : FetchProfile.BULK;
+    // only searches are worth reading in parallel, they can scan many records to find a few.
+    // Split scan returns messages partition after partition, so limited and backward reads,
+    // whose results should be the first (or newest) messages of all partitions, are not split
+    boolean parallelScan = StringUtils.isNotBlank(query) && scanConcurrency > 1
+        && recordsLimit == Long.MAX_VALUE && consumerPosition.getSeekType() != SeekType.BACKWARD;
+    List<ConsumerPosition> positions = parallelScan
+        ? splitPosition(cluster, topic, consumerPosition) : List.of(consumerPosition);
+    Supplier<KafkaConsumerPool.Lease> consumerSupplier = dedicatedConsumers
+        ? () -> KafkaConsumerPool.Lease.unpooled(
+            consumerPool.createConsumer(cluster, fetchProfile))
+        : () -> consumerPool.borrow(cluster, fetchProfile);
+    Flux<Tuple2<ConsumerRecord<Bytes, Bytes>, TopicMessage>> messages;
+    if (positions.size() == 1) {
+      messages = scan(topic, consumerPosition, toTimestamp,
+          filter, recordDeserializer, consumerSupplier, stats);
+    } else {
+      // partitions are scanned concurrently, but their results are emitted one partition
+      // after another, so every partition's messages keep their offsets order
+      messages = Flux.fromIterable(positions)
+          .flatMapSequential(p -> scan(topic, p, toTimestamp, filter, recordDeserializer,
+              consumerSupplier, stats), scanConcurrency);
+    }
+    // size is accounted when message is emitted, not when it is deserialized, so messages
+    // deserialized ahead of the cutoff are not counted
+    return messages
+        .doOnNext(t -> {
+          stats.matched.incrementAndGet();
+          stats.matchedBytes.addAndGet(retainedSize(t.getT1()));
+        })
+        .limitRequest(recordsLimit)
+        .takeUntil(t -> stats.matchedBytes.get() >= responseSizeLimit)
+        .map(Tuple2::getT2)
+        // plain page loads are logged at debug, only searches are worth logging at info
+        .doFinally(s -> {
+          if (StringUtils.isNotBlank(query)) {
+            log.info("Search in topic {} finished: {}", topic, stats);
+          } else {
+            log.debug("Reading topic {} finished: {}", topic, stats);
+          }
+        });
+  }
+
+  private Flux<Tuple2<ConsumerRecord<Bytes, Bytes>, TopicMessage>> scan(
+      String topic, ConsumerPosition consumerPosition, Long toTimestamp, MessageFilter filter,
+      RecordDeserializer recordDeserializer, Supplier<KafkaConsumerPool.Lease> consumerSupplier,
+      SearchStats stats) {
+    AbstractRecordEmitter emitter = consumerPosition.getSeekType() == SeekType.BACKWARD
+        ? new BackwardRecordEmitter(consumerSupplier, topic, consumerPosition, toTimestamp)
+        : new RecordEmitter(consumerSupplier, new OffsetsSeek(topic, consumerPosition),
+            toTimestamp);
     return Flux.create(emitter)
         .subscribeOn(Schedulers.boundedElastic())
+        .doOnNext(batch -> stats.scanned.addAndGet(batch.size()))
+        .flatMapIterable(Function.identity(), BATCH_PREFETCH)
+        .filter(filter::testRecord)
+        // deserialization is offloaded from polling thread to deserialization scheduler,
+        // flatMapSequential keeps records order and bounds the number of records in flight
+        .doOnNext(r -> stats.enqueued())
+        .flatMapSequential(r -> Mono.fromCallable(() ->
+                deserializeAndFilter(r, filter, recordDeserializer, stats))
+                .subscribeOn(deserializationScheduler),
+            DESERIALIZATION_CONCURRENCY);
+  }
+
+  /**
+   * Returns null if record does not match the filter. Key is deserialized and checked first,
+   * so value is not deserialized for records with not matching keys.
+   */
+  private Tuple2<ConsumerRecord<Bytes, Bytes>, TopicMessage> deserializeAndFilter(
+      ConsumerRecord<Bytes, Bytes> record, MessageFilter filter,
+      RecordDeserializer recordDeserializer, SearchStats stats) {
+    stats.dequeued();
+    final String key = recordDeserializer.deserializeKey(record);
+    if (!filter.testKey(key)) {
+      return null;
+    }
+    final TopicMessage message = toTopicMessage(record, key, recordDeserializer);
+    stats.deserialized.incrementAndGet();
+    if (!filter.testMessage(message)) {
+      return null;
+    }
+    return Tuples.of(record, message);
+  }
+
+  /**
+   * Returns single message with full content, regardless of its size.
+   */
+  public Mono<TopicMessage> getMessage(KafkaCluster cluster, String topic,
+                                       int partition, long offset) {
+    RecordDeserializer recordDeserializer =
+        deserializationService.getRecordDeserializerForCluster(cluster);
+    return Mono.fromSupplier(() -> consumerPool.withConsumer(cluster,
+        consumer -> findRecord(consumer, new TopicPartition(topic, partition), offset)))
+        .subscribeOn(Schedulers.boundedElastic())
+        .flatMap(Mono::justOrEmpty)
         .map(r -> ClusterUtil.mapToTopicMessage(r, recordDeserializer))
-        .filter(m -> filterTopicMessage(m, query))
-        .limitRequest(recordsLimit);
+        .switchIfEmpty(Mono.error(MessageNotFoundException::new));
+  }
+
+  private static Optional<ConsumerRecord<Bytes, Bytes>> findRecord(
+      KafkaConsumer<Bytes, Bytes> consumer, TopicPartition partition, long offset) {
+    if (consumer.partitionsFor(partition.topic()).stream()
+        .noneMatch(p -> p.partition() == partition.partition())) {
+      return Optional.empty();
+    }
+    List<TopicPartition> partitions = List.of(partition);
+    if (offset < consumer.beginningOffsets(partitions).get(partition)
+        || offset >= consumer.endOffsets(partitions).get(partition)) {
+      return Optional.empty();
+    }
+    consumer.assign(partitions);
+    consumer.seek(partition, offset);
+    for (int i = 0; i < FIND_RECORD_POLLS; i++) {
+      List<ConsumerRecord<Bytes, Bytes>> records =
+          consumer.poll(AbstractRecordEmitter.POLL_TIMEOUT_MS).records(partition);
+      if (!records.isEmpty()) {
+        // offset can be missing in compacted topic, then first record has greater offset
+        return records.stream().filter(r -> r.offset() == offset).findFirst();
+      }
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Values larger than max content size are not deserialized, message content is replaced
+   * with the beginning of the value as text, or left empty for binary (avro, protobuf) values.
+   */
+  private TopicMessage toTopicMessage(ConsumerRecord<Bytes, Bytes> record, String key,
+                                      RecordDeserializer recordDeserializer) {
+    if (record.value() == null || record.value().get().length <= maxContentSize) {
+      return ClusterUtil.mapToTopicMessage(record, key, recordDeserializer);
+    }
+    return ClusterUtil.mapToTopicMessage(record, key,
+        r -> recordDeserializer.previewValue(r, maxContentSize))
+        .truncated(true);
+  }
+
+  private long retainedSize(ConsumerRecord<Bytes, Bytes> record) {
+    long keySize = record.key() != null ? record.key().get().length : 0;
+    long valueSize = record.value() != null ? record.value().get().length : 0;
+    return keySize + Math.min(valueSize, maxContentSize);
+  }
+
+  /**
+   * Splits position into positions of single partitions, ordered by partition. Position is
+   * not split if partitions can't be resolved without consumer (e.g. seek by offset without
+   * explicit partitions).
+   */
+  private List<ConsumerPosition> splitPosition(KafkaCluster cluster, String topic,
+                                               ConsumerPosition consumerPosition) {
+    final Map<Integer, Long> seekTo = consumerPosition.getSeekTo();
+    final Collection<Integer> partitions;
+    if (!seekTo.isEmpty()) {
+      partitions = seekTo.keySet();
+    } else if (consumerPosition.getSeekType() == SeekType.BEGINNING
+        && cluster.getTopics() != null && cluster.getTopics().containsKey(topic)) {
+      partitions = cluster.getTopics().get(topic).getPartitions().keySet();
+    } else {
+      partitions = List.of();
+    }
+    if (partitions.size() <= 1) {
+      return List.of(consumerPosition);
+    }
+    return partitions.stream()
+        .sorted()
+        .map(p -> new ConsumerPosition(consumerPosition.getSeekType(),
+            Map.of(p, seekTo.getOrDefault(p, 0L))))
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Live tail of topic, records are pushed to subscribers as they arrive. All subscribers of
+   * the same topic share one consumer and deserialized messages, consumer is closed when the
+   * last subscriber disconnects. Slow subscriber loses oldest messages instead of slowing
+   * down others.
+   */
+  public Flux<TopicMessage> tailMessages(KafkaCluster cluster, String topic, String query,
+                                         MessageFilterType filterType) {
+    MessageFilter filter = MessageFilter.compile(query, filterType);
+    return tails.computeIfAbsent(cluster.getName() + "/" + topic,
+        key -> createTail(cluster, topic, key))
+        .onBackpressureBuffer(TAIL_BUFFER_SIZE,
+            t -> log.debug("Live tail subscriber of topic {} is too slow, message dropped",
+                topic),
+            BufferOverflowStrategy.DROP_OLDEST)
+        .filter(t -> filter.testRecord(t.getT1()) && filter.testKey(t.getT2().getKey())
+            && filter.testMessage(t.getT2()))
+        .map(Tuple2::getT2);
+  }
+
+  private Flux<Tuple2<ConsumerRecord<Bytes, Bytes>, TopicMessage>> createTail(
+      KafkaCluster cluster, String topic, String key) {
+    RecordDeserializer recordDeserializer =
+        deserializationService.getRecordDeserializerForCluster(cluster);
+    // tail consumer is long-living, so it is not taken from pool
+    TailRecordEmitter emitter = new TailRecordEmitter(
+        () -> KafkaConsumerPool.Lease.unpooled(consumerPool.createConsumer(cluster)), topic);
+    final AtomicReference<Flux<Tuple2<ConsumerRecord<Bytes, Bytes>, TopicMessage>>> tail =
+        new AtomicReference<>();
+    tail.set(Flux.create(emitter)
+        .subscribeOn(Schedulers.boundedElastic())
+        .flatMapIterable(Function.identity(), BATCH_PREFETCH)
+        .flatMapSequential(r -> Mono.fromCallable(() -> Tuples.of(r,
+                toTopicMessage(r, recordDeserializer.deserializeKey(r), recordDeserializer)))
+                .subscribeOn(deserializationScheduler),
+            DESERIALIZATION_CONCURRENCY)
+        // source is subscribed when the first subscriber comes and cancelled when the last
+        // one leaves. Subscriber which got this tail just before its removal reconnects it,
+        // so it is stored again, and only this tail's entry is removed, not a newer one
+        .doOnSubscribe(s -> tails.putIfAbsent(key, tail.get()))
+        .doFinally(s -> tails.remove(key, tail.get()))
+        .publish()
+        .refCount());
+    return tail.get();
   }
 
   public Mono<Map<TopicPartition, Long>> offsetsForDeletion(KafkaCluster cluster, String topicName,
                                                             List<Integer> partitionsToInclude) {
     return Mono.fromSupplier(() -> {
-      try (KafkaConsumer<Bytes, Bytes> consumer = kafkaService.createConsumer(cluster)) {
-        return significantOffsets(consumer, topicName, partitionsToInclude);
+      try {
+        return consumerPool.withConsumer(cluster,
+            consumer -> significantOffsets(consumer, topicName, partitionsToInclude));
       } catch (Exception e) {
         log.error("Error occurred while consuming records", e);
         throw new RuntimeException(e);
@@ -94,67 +385,379 @@ public class ConsumingService {
         .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
   }
 
-  private boolean filterTopicMessage(TopicMessage message, String query) {
-    if (StringUtils.isEmpty(query)) {
-      return true;
+  /**
+   * Counters of one search. Queue depth is the number of records handed over by polling
+   * thread and waiting for deserialization, throughput is computed for whole search duration.
+   */
+  static class SearchStats {
+    private final long startNanos = System.nanoTime();
+    private final AtomicLong scanned = new AtomicLong();
+    private final AtomicLong deserialized = new AtomicLong();
+    private final AtomicLong matched = new AtomicLong();
+    private final AtomicLong matchedBytes = new AtomicLong();
+    private final AtomicLong queued = new AtomicLong();
+    private final AtomicLong maxQueued = new AtomicLong();
+
+    void enqueued() {
+      maxQueued.accumulateAndGet(queued.incrementAndGet(), Math::max);
+    }
+
+    void dequeued() {
+      queued.decrementAndGet();
     }
 
-    Object content = message.getContent();
-    JsonNode tree = objectMapper.valueToTree(content);
-    return treeContainsValue(tree, query);
+    @Override
+    public String toString() {
+      double seconds = Math.max(System.nanoTime() - startNanos, 1) / 1e9;
+      return String.format("%d records scanned (%.0f/s), %d deserialized (%.0f/s), "
+              + "%d matched, max deserialization queue %d, took %.3fs",
+          scanned.get(), scanned.get() / seconds, deserialized.get(),
+          deserialized.get() / seconds, matched.get(), maxQueued.get(), seconds);
+    }
   }
 
-  private boolean treeContainsValue(JsonNode tree, String query) {
-    LinkedList<JsonNode> nodesForSearch = new LinkedList<>();
-    nodesForSearch.add(tree);
+  /**
+   * Emits records in batches of one poll (or one window for backward reading), so per-record
+   * signalling cost is paid only by consumers that flatten batches.
+   */
+  abstract static class AbstractRecordEmitter
+      implements java.util.function.Consumer<FluxSink<List<ConsumerRecord<Bytes, Bytes>>>> {
+
+    static final Duration POLL_TIMEOUT_MS = Duration.ofMillis(1000L);
 
-    while (!nodesForSearch.isEmpty()) {
-      JsonNode node = nodesForSearch.removeFirst();
+    private final Supplier<KafkaConsumerPool.Lease> consumerSupplier;
+    private final Object demandLock = new Object();
+    private long polls;
+    private long polledRecords;
+    private long pollNanos;
+
+    AbstractRecordEmitter(Supplier<KafkaConsumerPool.Lease> consumerSupplier) {
+      this.consumerSupplier = consumerSupplier;
+    }
 
-      if (node.isContainerNode()) {
-        node.elements().forEachRemaining(nodesForSearch::add);
-        continue;
+    @Override
+    public void accept(FluxSink<List<ConsumerRecord<Bytes, Bytes>>> sink) {
+      sink.onRequest(n -> {
+        synchronized (demandLock) {
+          demandLock.notifyAll();
+        }
+      });
+      sink.onCancel(() -> {
+        synchronized (demandLock) {
+          demandLock.notifyAll();
+        }
+      });
+      try (KafkaConsumerPool.Lease lease = consumerSupplier.get()) {
+        try {
+          poll(lease.getConsumer(), sink);
+          log.debug("{} finished: {} polls, {} records polled, {} ms in poll",
+              getClass().getSimpleName(), polls, polledRecords, pollNanos / 1_000_000);
+        } catch (Exception e) {
+          lease.markBroken();
+          throw e;
+        }
+      } catch (Exception e) {
+        log.error("Error occurred while consuming records", e);
+        throw new RuntimeException(e);
       }
+    }
+
+    abstract void poll(KafkaConsumer<Bytes, Bytes> consumer,
+                       FluxSink<List<ConsumerRecord<Bytes, Bytes>>> sink);
 
-      String nodeValue = node.asText();
-      if (nodeValue.contains(query)) {
-        return true;
+    ConsumerRecords<Bytes, Bytes> pollRecords(Consumer<Bytes, Bytes> consumer) {
+      final long start = System.nanoTime();
+      final ConsumerRecords<Bytes, Bytes> records = consumer.poll(POLL_TIMEOUT_MS);
+      pollNanos += System.nanoTime() - start;
+      polls++;
+      polledRecords += records.count();
+      return records;
+    }
+
+    /**
+     * Blocks polling thread while downstream has no demand, so records are not
+     * accumulated in the sink buffer when client reads slower than kafka is polled.
+     */
+    void awaitDemand(FluxSink<?> sink) {
+      synchronized (demandLock) {
+        while (sink.requestedFromDownstream() == 0 && !sink.isCancelled()) {
+          try {
+            demandLock.wait(POLL_TIMEOUT_MS.toMillis());
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+          }
+        }
       }
     }
+  }
+
+  static class RecordEmitter extends AbstractRecordEmitter {
+
+    private final OffsetsSeek offsetsSeek;
+    // partition is read until first record with greater timestamp, null means no bound
+    private final Long toTimestamp;
 
-    return false;
+    RecordEmitter(Supplier<KafkaConsumerPool.Lease> consumerSupplier, OffsetsSeek offsetsSeek) {
+      this(consumerSupplier, offsetsSeek, null);
+    }
+
+    RecordEmitter(Supplier<KafkaConsumerPool.Lease> consumerSupplier, OffsetsSeek offsetsSeek,
+                  Long toTimestamp) {
+      super(consumerSupplier);
+      this.offsetsSeek = offsetsSeek;
+      this.toTimestamp = toTimestamp;
+    }
+
+    @Override
+    void poll(KafkaConsumer<Bytes, Bytes> consumer,
+              FluxSink<List<ConsumerRecord<Bytes, Bytes>>> sink) {
+      var waitingOffsets = offsetsSeek.assignAndSeek(consumer);
+      // CreateTime is not monotonic, so records of ended partition which follow the first one
+      // after toTimestamp are skipped even if they have smaller timestamps
+      final Set<Integer> ended = new HashSet<>();
+      while (!sink.isCancelled() && !waitingOffsets.endReached()) {
+        awaitDemand(sink);
+        if (sink.isCancelled()) {
+          break;
+        }
+        ConsumerRecords<Bytes, Bytes> records = pollRecords(consumer);
+        List<ConsumerRecord<Bytes, Bytes>> batch = new ArrayList<>(records.count());
+        for (ConsumerRecord<Bytes, Bytes> record : records) {
+          if (waitingOffsets.endReached()) {
+            break;
+          }
+          if (ended.contains(record.partition())) {
+            continue;
+          }
+          if (toTimestamp != null && record.timestamp() > toTimestamp) {
+            ended.add(record.partition());
+            waitingOffsets.markEnded(record.partition());
+            consumer.pause(List.of(new TopicPartition(record.topic(), record.partition())));
+            continue;
+          }
+          batch.add(record);
+          waitingOffsets.markPolled(record);
+        }
+        if (!batch.isEmpty() && !sink.isCancelled()) {
+          sink.next(batch);
+        }
+      }
+      sink.complete();
+    }
   }
 
-  @RequiredArgsConstructor
-  static class RecordEmitter
-      implements java.util.function.Consumer<FluxSink<ConsumerRecord<Bytes, Bytes>>> {
+  /**
+   * Reads partitions from the end (or from requested offsets, exclusive) to the beginning.
+   * Every step reads a window of offsets just before the previous one and emits its records
+   * newest-first, so reading latest messages costs only a few small fetches.
+   */
+  static class BackwardRecordEmitter extends AbstractRecordEmitter {
 
-    private static final Duration POLL_TIMEOUT_MS = Duration.ofMillis(1000L);
+    private static final int CHUNK_SIZE = 500;
+    private static final int MIN_PARTITION_CHUNK_SIZE = 10;
+    // partition whose position doesn't move during this many polls is not read anymore
+    private static final int MAX_IDLE_POLLS = 5;
+    private static final Comparator<ConsumerRecord<?, ?>> NEWEST_FIRST =
+        Comparator.<ConsumerRecord<?, ?>>comparingLong(ConsumerRecord::timestamp)
+            .thenComparingInt(ConsumerRecord::partition)
+            .reversed();
 
-    private final Supplier<KafkaConsumer<Bytes, Bytes>> consumerSupplier;
-    private final OffsetsSeek offsetsSeek;
+    private final String topic;
+    private final ConsumerPosition consumerPosition;
+    // partition is read until first record with lower timestamp, null means no bound
+    private final Long toTimestamp;
+
+    BackwardRecordEmitter(Supplier<KafkaConsumerPool.Lease> consumerSupplier, String topic,
+                          ConsumerPosition consumerPosition, Long toTimestamp) {
+      super(consumerSupplier);
+      this.topic = topic;
+      this.consumerPosition = consumerPosition;
+      this.toTimestamp = toTimestamp;
+    }
 
     @Override
-    public void accept(FluxSink<ConsumerRecord<Bytes, Bytes>> sink) {
-      try (KafkaConsumer<Bytes, Bytes> consumer = consumerSupplier.get()) {
-        var waitingOffsets = offsetsSeek.assignAndSeek(consumer);
-        while (!sink.isCancelled() && !waitingOffsets.endReached()) {
-          ConsumerRecords<Bytes, Bytes> records = consumer.poll(POLL_TIMEOUT_MS);
-          log.info("{} records polled", records.count());
-          for (ConsumerRecord<Bytes, Bytes> record : records) {
-            if (!sink.isCancelled() && !waitingOffsets.endReached()) {
-              sink.next(record);
-              waitingOffsets.markPolled(record);
-            } else {
-              break;
+    void poll(KafkaConsumer<Bytes, Bytes> consumer,
+              FluxSink<List<ConsumerRecord<Bytes, Bytes>>> sink) {
+      final Map<Integer, Long> seekTo = consumerPosition.getSeekTo();
+      final List<TopicPartition> partitions = consumer.partitionsFor(topic).stream()
+          .filter(p -> seekTo.isEmpty() || seekTo.containsKey(p.partition()))
+          .map(p -> new TopicPartition(topic, p.partition()))
+          .collect(Collectors.toList());
+      final Map<TopicPartition, Long> beginning = consumer.beginningOffsets(partitions);
+      // exclusive upper bound of the next window for every partition that is not read yet
+      final Map<TopicPartition, Long> upperBounds = new HashMap<>();
+      consumer.endOffsets(partitions).forEach((tp, end) -> {
+        long upper = Math.min(end, seekTo.getOrDefault(tp.partition(), end));
+        if (upper > beginning.get(tp)) {
+          upperBounds.put(tp, upper);
+        }
+      });
+      final int chunkSize =
+          Math.max(MIN_PARTITION_CHUNK_SIZE, CHUNK_SIZE / Math.max(1, partitions.size()));
+
+      while (!sink.isCancelled() && !upperBounds.isEmpty()) {
+        awaitDemand(sink);
+        final Map<TopicPartition, Long> lowerBounds = new HashMap<>();
+        upperBounds.forEach((tp, upper) ->
+            lowerBounds.put(tp, Math.max(beginning.get(tp), upper - chunkSize)));
+        final List<ConsumerRecord<Bytes, Bytes>> chunk =
+            readChunk(consumer, lowerBounds, upperBounds, sink);
+        final List<ConsumerRecord<Bytes, Bytes>> batch = new ArrayList<>(chunk.size());
+        final Set<TopicPartition> ended = new HashSet<>();
+        for (ConsumerRecord<Bytes, Bytes> record : newestFirst(chunk)) {
+          final TopicPartition tp = new TopicPartition(record.topic(), record.partition());
+          if (ended.contains(tp)) {
+            continue;
+          }
+          if (toTimestamp != null && record.timestamp() < toTimestamp) {
+            lowerBounds.put(tp, beginning.get(tp));
+            ended.add(tp);
+            continue;
+          }
+          batch.add(record);
+        }
+        if (!batch.isEmpty() && !sink.isCancelled()) {
+          sink.next(batch);
+        }
+        lowerBounds.forEach((tp, lower) -> {
+          if (lower > beginning.get(tp)) {
+            upperBounds.put(tp, lower);
+          } else {
+            upperBounds.remove(tp);
+          }
+        });
+      }
+      sink.complete();
+    }
+
+    /**
+     * Orders records of every partition by offsets descending and merges partitions by
+     * timestamp, so records of one partition keep their order even if their timestamps
+     * are not monotonic.
+     */
+    static List<ConsumerRecord<Bytes, Bytes>> newestFirst(
+        List<ConsumerRecord<Bytes, Bytes>> records) {
+      final Map<Integer, List<ConsumerRecord<Bytes, Bytes>>> byPartition = records.stream()
+          .collect(Collectors.groupingBy(ConsumerRecord::partition));
+      final Comparator<Deque<ConsumerRecord<Bytes, Bytes>>> byHead =
+          (d1, d2) -> NEWEST_FIRST.compare(d1.peekFirst(), d2.peekFirst());
+      final PriorityQueue<Deque<ConsumerRecord<Bytes, Bytes>>> heads =
+          new PriorityQueue<>(Math.max(1, byPartition.size()), byHead);
+      byPartition.values().forEach(partitionRecords -> {
+        partitionRecords.sort(
+            Comparator.<ConsumerRecord<?, ?>>comparingLong(ConsumerRecord::offset).reversed());
+        heads.add(new ArrayDeque<>(partitionRecords));
+      });
+      final List<ConsumerRecord<Bytes, Bytes>> result = new ArrayList<>(records.size());
+      while (!heads.isEmpty()) {
+        final Deque<ConsumerRecord<Bytes, Bytes>> head = heads.poll();
+        result.add(head.pollFirst());
+        if (!head.isEmpty()) {
+          heads.add(head);
+        }
+      }
+      return result;
+    }
+
+    private List<ConsumerRecord<Bytes, Bytes>> readChunk(KafkaConsumer<Bytes, Bytes> consumer,
+                                                         Map<TopicPartition, Long> lowerBounds,
+                                                         Map<TopicPartition, Long> upperBounds,
+                                                         FluxSink<?> sink) {
+      consumer.assign(lowerBounds.keySet());
+      consumer.resume(lowerBounds.keySet());
+      lowerBounds.forEach(consumer::seek);
+      final List<ConsumerRecord<Bytes, Bytes>> chunk = new ArrayList<>();
+      final Set<TopicPartition> pending = new HashSet<>(lowerBounds.keySet());
+      final Map<TopicPartition, Long> positions = new HashMap<>(lowerBounds);
+      final Map<TopicPartition, Integer> idlePolls = new HashMap<>();
+      final Set<TopicPartition> stalled = new HashSet<>();
+      while (!pending.isEmpty() && !sink.isCancelled()) {
+        ConsumerRecords<Bytes, Bytes> records = pollRecords(consumer);
+        for (TopicPartition tp : records.partitions()) {
+          for (ConsumerRecord<Bytes, Bytes> record : records.records(tp)) {
+            if (record.offset() < upperBounds.get(tp)) {
+              chunk.add(record);
             }
           }
         }
-        sink.complete();
-        log.info("Polling finished");
-      } catch (Exception e) {
-        log.error("Error occurred while consuming records", e);
-        throw new RuntimeException(e);
+        final List<TopicPartition> done = new ArrayList<>();
+        for (TopicPartition tp : pending) {
+          final long position = consumer.position(tp);
+          if (position >= upperBounds.get(tp)) {
+            done.add(tp);
+          } else if (position > positions.get(tp)) {
+            positions.put(tp, position);
+            idlePolls.remove(tp);
+          } else if (idlePolls.merge(tp, 1, Integer::sum) >= MAX_IDLE_POLLS) {
+            log.warn("Partition {} made no progress in {} polls, it is skipped", tp,
+                MAX_IDLE_POLLS);
+            done.add(tp);
+            stalled.add(tp);
+          }
+        }
+        consumer.pause(done);
+        pending.removeAll(done);
+      }
+      // records already read from stalled partitions are returned, but they are not read
+      // further, so one unavailable partition can't block reading of the others
+      lowerBounds.keySet().removeAll(stalled);
+      upperBounds.keySet().removeAll(stalled);
+      return chunk;
+    }
+  }
+
+  /**
+   * Keeps reading topic after reaching its end, partitions added to topic are picked up
+   * periodically and read from the beginning.
+   */
+  static class TailRecordEmitter extends AbstractRecordEmitter {
+
+    private static final long PARTITIONS_REFRESH_MS = 30_000;
+
+    private final String topic;
+
+    TailRecordEmitter(Supplier<KafkaConsumerPool.Lease> consumerSupplier, String topic) {
+      super(consumerSupplier);
+      this.topic = topic;
+    }
+
+    @Override
+    void poll(KafkaConsumer<Bytes, Bytes> consumer,
+              FluxSink<List<ConsumerRecord<Bytes, Bytes>>> sink) {
+      long partitionsRefreshedAt = 0;
+      while (!sink.isCancelled()) {
+        if (System.currentTimeMillis() - partitionsRefreshedAt > PARTITIONS_REFRESH_MS) {
+          assignNewPartitions(consumer, partitionsRefreshedAt == 0);
+          partitionsRefreshedAt = System.currentTimeMillis();
+        }
+        awaitDemand(sink);
+        ConsumerRecords<Bytes, Bytes> records = pollRecords(consumer);
+        if (!records.isEmpty() && !sink.isCancelled()) {
+          List<ConsumerRecord<Bytes, Bytes>> batch = new ArrayList<>(records.count());
+          records.forEach(batch::add);
+          sink.next(batch);
+        }
+      }
+      sink.complete();
+    }
+
+    private void assignNewPartitions(Consumer<Bytes, Bytes> consumer, boolean initial) {
+      final Set<TopicPartition> assigned = consumer.assignment();
+      final List<TopicPartition> partitions = consumer.partitionsFor(topic).stream()
+          .map(p -> new TopicPartition(topic, p.partition()))
+          .collect(Collectors.toList());
+      final List<TopicPartition> added = partitions.stream()
+          .filter(tp -> !assigned.contains(tp))
+          .collect(Collectors.toList());
+      if (added.isEmpty()) {
+        return;
+      }
+      consumer.assign(partitions);
+      if (initial) {
+        consumer.seekToEnd(added);
+      } else {
+        consumer.seekToBeginning(added);
       }
     }
   }
@@ -247,6 +850,10 @@ public class ConsumingService {
         }
       }
 
+      void markEnded(int partition) {
+        offsets.remove(partition);
+      }
+
       boolean endReached() {
         return offsets.isEmpty();
       }
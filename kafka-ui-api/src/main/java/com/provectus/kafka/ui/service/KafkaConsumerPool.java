@@ -0,0 +1,275 @@
+package com.provectus.kafka.ui.service;
+
+import com.provectus.kafka.ui.exception.ClusterNotFoundException;
+import com.provectus.kafka.ui.model.KafkaCluster;
+import com.provectus.kafka.ui.util.KafkaConsumerPoolFactory;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.apache.commons.pool2.impl.GenericKeyedObjectPool;
+import org.apache.commons.pool2.impl.GenericKeyedObjectPoolConfig;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.serialization.BytesDeserializer;
+import org.apache.kafka.common.utils.Bytes;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Per-cluster pool of KafkaConsumers, so that message browsing and offsets lookups
+ * don't pay for metadata bootstrap and connection setup on every request. Consumers are
+ * pooled separately for every fetch profile, since fetch sizes can't be changed after
+ * consumer is created.
+ */
+@Component
+@RequiredArgsConstructor
+@Log4j2
+public class KafkaConsumerPool {
+
+  private final ClustersStorage clustersStorage;
+  private final Map<String, PoolStats> stats = new ConcurrentHashMap<>();
+
+  @Value("${kafka.consumer-pool.max-per-cluster:8}")
+  private int maxPerCluster;
+  @Value("${kafka.consumer-pool.max-idle-per-cluster:4}")
+  private int maxIdlePerCluster;
+  @Value("${kafka.consumer-pool.max-wait-ms:10000}")
+  private long maxWaitMs;
+  @Value("${kafka.consumer-pool.idle-timeout-ms:300000}")
+  private long idleTimeoutMs;
+  @Value("${kafka.consumer-pool.eviction-interval-ms:60000}")
+  private long evictionIntervalMs;
+  @Value("${kafka.admin-client-timeout}")
+  private int clientTimeout;
+
+  private GenericKeyedObjectPool<PoolKey, KafkaConsumer<Bytes, Bytes>> pool;
+
+  @PostConstruct
+  public void init() {
+    GenericKeyedObjectPoolConfig poolConfig = new GenericKeyedObjectPoolConfig();
+    poolConfig.setMaxTotalPerKey(maxPerCluster);
+    poolConfig.setMaxIdlePerKey(maxIdlePerCluster);
+    poolConfig.setMaxWaitMillis(maxWaitMs);
+    poolConfig.setBlockWhenExhausted(true);
+    poolConfig.setMinEvictableIdleTimeMillis(idleTimeoutMs);
+    poolConfig.setTimeBetweenEvictionRunsMillis(evictionIntervalMs);
+    poolConfig.setTestWhileIdle(true);
+    poolConfig.setJmxNamePrefix("kafka-consumers");
+    pool = new GenericKeyedObjectPool<>(
+        new KafkaConsumerPoolFactory<>(this::createPooledConsumer,
+            Duration.ofMillis(clientTimeout)),
+        poolConfig
+    );
+  }
+
+  @PreDestroy
+  public void close() {
+    pool.close();
+  }
+
+  public Lease borrow(KafkaCluster cluster) {
+    return borrow(cluster, FetchProfile.INTERACTIVE);
+  }
+
+  public Lease borrow(KafkaCluster cluster, FetchProfile profile) {
+    final PoolKey key = new PoolKey(cluster.getName(), profile);
+    final PoolStats clusterStats = statsFor(cluster.getName());
+    final long start = System.nanoTime();
+    try {
+      KafkaConsumer<Bytes, Bytes> consumer = pool.borrowObject(key);
+      clusterStats.borrowed(System.nanoTime() - start);
+      log.debug("Consumer borrowed for cluster {}, pool stats: {}", key, clusterStats);
+      return new Lease(consumer, c -> release(key, c), c -> invalidate(key, c));
+    } catch (Exception e) {
+      clusterStats.failed();
+      throw new IllegalStateException("Can't borrow consumer for cluster " + key, e);
+    }
+  }
+
+  public <T> T withConsumer(KafkaCluster cluster, Function<KafkaConsumer<Bytes, Bytes>, T> action) {
+    try (Lease lease = borrow(cluster)) {
+      try {
+        return action.apply(lease.getConsumer());
+      } catch (RuntimeException e) {
+        lease.markBroken();
+        throw e;
+      }
+    }
+  }
+
+  /**
+   * Creates dedicated consumer that is not managed by the pool. Caller is responsible for closing.
+   */
+  public KafkaConsumer<Bytes, Bytes> createConsumer(KafkaCluster cluster) {
+    return new KafkaConsumer<>(consumerProperties(cluster));
+  }
+
+  public KafkaConsumer<Bytes, Bytes> createConsumer(KafkaCluster cluster, FetchProfile profile) {
+    Properties props = consumerProperties(cluster);
+    props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, profile.maxPollRecords);
+    props.put(ConsumerConfig.FETCH_MAX_BYTES_CONFIG, profile.fetchMaxBytes);
+    return new KafkaConsumer<>(props);
+  }
+
+  private Properties consumerProperties(KafkaCluster cluster) {
+    Properties props = new Properties();
+    props.putAll(cluster.getProperties());
+    props.put(ConsumerConfig.CLIENT_ID_CONFIG, "kafka-ui");
+    props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, cluster.getBootstrapServers());
+    props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, BytesDeserializer.class);
+    props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, BytesDeserializer.class);
+    props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+    return props;
+  }
+
+  public PoolStats getStats(String clusterName) {
+    return statsFor(clusterName);
+  }
+
+  private KafkaConsumer<Bytes, Bytes> createPooledConsumer(PoolKey key) {
+    var cluster = clustersStorage.getClusterByName(key.getClusterName())
+        .orElseThrow(ClusterNotFoundException::new);
+    log.debug("Creating pooled consumer {}", key);
+    var consumer = createConsumer(cluster, key.getProfile());
+    statsFor(key.getClusterName()).created();
+    return consumer;
+  }
+
+  private void release(PoolKey key, KafkaConsumer<Bytes, Bytes> consumer) {
+    try {
+      pool.returnObject(key, consumer);
+    } catch (Exception e) {
+      log.error("Cannot return consumer to the pool, {}", key, e);
+    }
+  }
+
+  private void invalidate(PoolKey key, KafkaConsumer<Bytes, Bytes> consumer) {
+    try {
+      pool.invalidateObject(key, consumer);
+    } catch (Exception e) {
+      log.error("Cannot invalidate consumer in the pool, {}", key, e);
+    }
+  }
+
+  private PoolStats statsFor(String clusterName) {
+    return stats.computeIfAbsent(clusterName, k -> new PoolStats());
+  }
+
+  /**
+   * Fetch sizes of pooled consumers. Small requests (a page of messages, single message)
+   * don't need large fetches, while full scans benefit from fewer and larger polls.
+   */
+  public enum FetchProfile {
+    INTERACTIVE(100, 4 * 1024 * 1024),
+    BULK(2000, 50 * 1024 * 1024);
+
+    private final int maxPollRecords;
+    private final int fetchMaxBytes;
+
+    FetchProfile(int maxPollRecords, int fetchMaxBytes) {
+      this.maxPollRecords = maxPollRecords;
+      this.fetchMaxBytes = fetchMaxBytes;
+    }
+  }
+
+  @lombok.Value
+  private static class PoolKey {
+    String clusterName;
+    FetchProfile profile;
+
+    @Override
+    public String toString() {
+      return clusterName + " (" + profile + ")";
+    }
+  }
+
+  /**
+   * Consumer borrowed from the pool. Closing the lease returns the consumer back,
+   * unless it was marked as broken - in this case consumer is destroyed.
+   */
+  @RequiredArgsConstructor
+  public static class Lease implements AutoCloseable {
+    private final KafkaConsumer<Bytes, Bytes> consumer;
+    private final java.util.function.Consumer<KafkaConsumer<Bytes, Bytes>> onRelease;
+    private final java.util.function.Consumer<KafkaConsumer<Bytes, Bytes>> onInvalidate;
+    private boolean broken;
+
+    public static Lease unpooled(KafkaConsumer<Bytes, Bytes> consumer) {
+      return new Lease(consumer, KafkaConsumer::close, KafkaConsumer::close);
+    }
+
+    public KafkaConsumer<Bytes, Bytes> getConsumer() {
+      return consumer;
+    }
+
+    public void markBroken() {
+      this.broken = true;
+    }
+
+    @Override
+    public void close() {
+      if (broken) {
+        onInvalidate.accept(consumer);
+      } else {
+        onRelease.accept(consumer);
+      }
+    }
+  }
+
+  public static class PoolStats {
+    private final LongAdder borrows = new LongAdder();
+    private final LongAdder creations = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    void borrowed(long waitedNanos) {
+      borrows.increment();
+      waitNanos.add(waitedNanos);
+      maxWaitNanos.accumulateAndGet(waitedNanos, Math::max);
+    }
+
+    void created() {
+      creations.increment();
+    }
+
+    void failed() {
+      failures.increment();
+    }
+
+    public long getHits() {
+      return Math.max(0, borrows.sum() - creations.sum());
+    }
+
+    public long getMisses() {
+      return creations.sum();
+    }
+
+    public long getFailures() {
+      return failures.sum();
+    }
+
+    public double getMeanWaitMs() {
+      long count = borrows.sum();
+      return count == 0 ? 0 : waitNanos.sum() / 1_000_000.0 / count;
+    }
+
+    public double getMaxWaitMs() {
+      return maxWaitNanos.get() / 1_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("hits=%d, misses=%d, failures=%d, meanWaitMs=%.2f, maxWaitMs=%.2f",
+          getHits(), getMisses(), getFailures(), getMeanWaitMs(), getMaxWaitMs());
+    }
+  }
+}
@@ -5,12 +5,13 @@ import com.provectus.kafka.ui.model.ExtendedAdminClient;
 import com.provectus.kafka.ui.model.InternalBrokerDiskUsage;
 import com.provectus.kafka.ui.model.InternalBrokerMetrics;
 import com.provectus.kafka.ui.model.InternalClusterMetrics;
+import com.provectus.kafka.ui.model.InternalClusterSnapshot;
+import com.provectus.kafka.ui.model.InternalMetric;
 import com.provectus.kafka.ui.model.InternalPartition;
 import com.provectus.kafka.ui.model.InternalSegmentSizeDto;
 import com.provectus.kafka.ui.model.InternalTopic;
 import com.provectus.kafka.ui.model.InternalTopicConfig;
 import com.provectus.kafka.ui.model.KafkaCluster;
-import com.provectus.kafka.ui.model.Metric;
 import com.provectus.kafka.ui.model.ServerStatus;
 import com.provectus.kafka.ui.model.TopicConsumerGroups;
 import com.provectus.kafka.ui.model.TopicCreation;
@@ -19,16 +20,21 @@ import com.provectus.kafka.ui.util.ClusterUtil;
 import com.provectus.kafka.ui.util.JmxClusterUtil;
 import com.provectus.kafka.ui.util.JmxMetricsName;
 import com.provectus.kafka.ui.util.JmxMetricsValueName;
-import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.LongSummaryStatistics;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import lombok.RequiredArgsConstructor;
@@ -41,17 +47,15 @@ import org.apache.kafka.clients.admin.Config;
 import org.apache.kafka.clients.admin.ConfigEntry;
 import org.apache.kafka.clients.admin.ConsumerGroupDescription;
 import org.apache.kafka.clients.admin.ConsumerGroupListing;
+import org.apache.kafka.clients.admin.DescribeClusterResult;
 import org.apache.kafka.clients.admin.ListTopicsOptions;
 import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.admin.RecordsToDelete;
-import org.apache.kafka.clients.consumer.ConsumerConfig;
-import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.admin.TopicDescription;
 import org.apache.kafka.clients.consumer.OffsetAndMetadata;
 import org.apache.kafka.common.Node;
 import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.config.ConfigResource;
-import org.apache.kafka.common.serialization.BytesDeserializer;
-import org.apache.kafka.common.utils.Bytes;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
@@ -71,8 +75,17 @@ public class KafkaService {
   private final Map<String, ExtendedAdminClient> adminClientCache = new ConcurrentHashMap<>();
   private final JmxClusterUtil jmxClusterUtil;
   private final ClustersStorage clustersStorage;
+  private final OffsetsService offsetsService;
+  // position of the next batch of known topics to re-describe, per cluster
+  private final Map<String, Integer> topicsRefreshCursors = new ConcurrentHashMap<>();
   @Value("${kafka.admin-client-timeout}")
   private int clientTimeout;
+  // number of healthy known topics re-described on every refresh, 0 (default) describes all
+  // topics on every refresh. With batch size set, leader or ISR loss of a healthy topic is
+  // noticed within (known topics / batch size) refreshes, e.g. 30 refreshes for 15000 topics
+  // and batch of 500, until then its partition counts and cluster events are stale
+  @Value("${kafka.topics-refresh-batch-size:0}")
+  private int topicsRefreshBatchSize;
 
   public KafkaCluster getUpdatedCluster(KafkaCluster cluster, InternalTopic updatedTopic) {
     final Map<String, InternalTopic> topics = new HashMap<>(cluster.getTopics());
@@ -86,17 +99,29 @@ public class KafkaService {
     return cluster.toBuilder().topics(topics).build();
   }
 
+  /**
+   * Refresh starts with a single snapshot stage (nodes, controller, topic names and
+   * descriptions of topics selected by {@link #topicsToDescribe}),
+   * which is then shared by jmx, topics and segments stages. Duration of every stage is
+   * stored into cluster metrics.
+   */
   @SneakyThrows
   public Mono<KafkaCluster> getUpdatedCluster(KafkaCluster cluster) {
+    final Map<String, Long> timings = new ConcurrentHashMap<>();
     return getOrCreateAdminClient(cluster)
-        .flatMap(
-            ac -> getClusterMetrics(ac.getAdminClient())
-                .flatMap(i -> fillJmxMetrics(i, cluster.getName(), ac.getAdminClient()))
-                .flatMap(clusterMetrics ->
-                    getTopicsData(ac.getAdminClient()).flatMap(it ->
-                        updateSegmentMetrics(ac.getAdminClient(), clusterMetrics, it)
-                    ).map(segmentSizeDto -> buildFromData(cluster, segmentSizeDto))
-                )
+        .flatMap(ac ->
+            timed("snapshot", timings, () -> getClusterSnapshot(cluster, ac.getAdminClient()))
+                .flatMap(snapshot ->
+                    Mono.zip(
+                        timed("jmx", timings, () -> fillJmxMetrics(
+                            getClusterMetrics(snapshot), cluster.getName(), snapshot.getNodes())),
+                        timed("topics", timings, () ->
+                            refreshTopicsData(cluster, snapshot))
+                    ).flatMap(t -> timed("segments", timings, () ->
+                        updateSegmentMetrics(
+                            ac.getAdminClient(), t.getT1(), t.getT2(), snapshot.getNodes())
+                    ))
+                ).map(segmentSizeDto -> buildFromData(cluster, segmentSizeDto, timings))
         ).onErrorResume(
             e -> Mono.just(cluster.toBuilder()
                 .status(ServerStatus.OFFLINE)
@@ -105,25 +130,97 @@ public class KafkaService {
         );
   }
 
+  private <T> Mono<T> timed(String stage, Map<String, Long> timings, Supplier<Mono<T>> stageMono) {
+    return Mono.defer(() -> {
+      final long start = System.nanoTime();
+      return stageMono.get().doOnSuccess(r ->
+          timings.put(stage, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start))
+      );
+    });
+  }
+
+  private Mono<InternalClusterSnapshot> getClusterSnapshot(KafkaCluster cluster,
+                                                           AdminClient adminClient) {
+    final DescribeClusterResult describeCluster = adminClient.describeCluster();
+    final Map<String, InternalTopic> current =
+        Optional.ofNullable(cluster.getTopics()).orElse(Collections.emptyMap());
+    return Mono.zip(
+        ClusterUtil.toMono(describeCluster.nodes()),
+        ClusterUtil.toMono(describeCluster.controller()).map(Optional::of)
+            .defaultIfEmpty(Optional.empty()),
+        ClusterUtil.toMono(adminClient.listTopics(LIST_TOPICS_OPTIONS).names())
+            .flatMap(names -> {
+              final Set<String> toDescribe = topicsToDescribe(cluster.getName(), names, current);
+              final Mono<Map<String, TopicDescription>> descriptions = toDescribe.isEmpty()
+                  ? Mono.just(Collections.emptyMap())
+                  : ClusterUtil.toMono(adminClient.describeTopics(toDescribe).all());
+              return descriptions.map(d -> Tuples.of(names, d));
+            })
+    ).map(t -> InternalClusterSnapshot.builder()
+        .nodes(t.getT1())
+        .controller(t.getT2().orElse(null))
+        .topicNames(t.getT3().getT1())
+        .topicDescriptions(t.getT3().getT2())
+        .build()
+    );
+  }
+
+  /**
+   * Selects topics to describe on this refresh. All topics are described unless refresh batch
+   * size is set. Otherwise these are new topics, topics with under-replicated or offline
+   * partitions and the next batch of other known topics, so every healthy known topic is
+   * re-described once per (known topics / batch size) refreshes. This trades freshness of
+   * healthy topics for cheaper refreshes of very large clusters.
+   */
+  Set<String> topicsToDescribe(String clusterName, Collection<String> names,
+                               Map<String, InternalTopic> current) {
+    final Set<String> result = new HashSet<>();
+    final List<String> known = new ArrayList<>();
+    for (String name : names) {
+      final InternalTopic topic = current.get(name);
+      if (topic == null || topic.getUnderReplicatedPartitions() > 0
+          || topic.getPartitions().values().stream().anyMatch(p -> p.getLeader() == null)) {
+        result.add(name);
+      } else {
+        known.add(name);
+      }
+    }
+    if (topicsRefreshBatchSize <= 0 || known.size() <= topicsRefreshBatchSize) {
+      result.addAll(known);
+      return result;
+    }
+    Collections.sort(known);
+    final int from = topicsRefreshCursors.getOrDefault(clusterName, 0) % known.size();
+    for (int i = 0; i < topicsRefreshBatchSize; i++) {
+      result.add(known.get((from + i) % known.size()));
+    }
+    topicsRefreshCursors.put(clusterName, (from + topicsRefreshBatchSize) % known.size());
+    return result;
+  }
+
   private KafkaCluster buildFromData(KafkaCluster currentCluster,
-                                     InternalSegmentSizeDto segmentSizeDto) {
+                                     InternalSegmentSizeDto segmentSizeDto,
+                                     Map<String, Long> timings) {
 
     var topics = segmentSizeDto.getInternalTopicWithSegmentSize();
     var brokersMetrics = segmentSizeDto.getClusterMetricsWithSegmentSize();
 
-    InternalClusterMetrics.InternalClusterMetricsBuilder metricsBuilder =
+    final InternalClusterMetrics.InternalClusterMetricsBuilder metricsBuilder =
         brokersMetrics.toBuilder();
 
-    InternalClusterMetrics topicsMetrics = collectTopicsMetrics(topics);
+    final InternalClusterMetrics topicsMetrics = collectTopicsMetrics(topics);
 
     ServerStatus zookeeperStatus = ServerStatus.OFFLINE;
     Throwable zookeeperException = null;
+    final long zookeeperStart = System.nanoTime();
     try {
       zookeeperStatus = zookeeperService.isZookeeperOnline(currentCluster) ? ServerStatus.ONLINE :
           ServerStatus.OFFLINE;
     } catch (Throwable e) {
       zookeeperException = e;
     }
+    timings.put("zookeeper", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - zookeeperStart));
+    log.debug("Cluster {} refreshed, stage timings (ms): {}", currentCluster.getName(), timings);
 
     InternalClusterMetrics clusterMetrics = metricsBuilder
         .activeControllers(brokersMetrics.getActiveControllers())
@@ -135,10 +232,12 @@ public class KafkaService {
         .onlinePartitionCount(topicsMetrics.getOnlinePartitionCount())
         .offlinePartitionCount(topicsMetrics.getOfflinePartitionCount())
         .zooKeeperStatus(ClusterUtil.convertToIntServerStatus(zookeeperStatus))
+        .refreshTimings(Map.copyOf(timings))
         .build();
 
     return currentCluster.toBuilder()
         .status(ServerStatus.ONLINE)
+        .stale(false)
         .zookeeperStatus(zookeeperStatus)
         .lastZookeeperException(zookeeperException)
         .lastKafkaException(null)
@@ -177,46 +276,70 @@ public class KafkaService {
         .build();
   }
 
-  private Map<String, InternalTopic> mergeWithConfigs(
-      List<InternalTopic> topics, Map<String, List<InternalTopicConfig>> configs) {
-    return topics.stream().map(
-        t -> t.toBuilder().topicConfigs(configs.get(t.getName())).build()
-    ).collect(Collectors.toMap(
-        InternalTopic::getName,
-        e -> e
-    ));
+  /**
+   * Refreshes topics metadata against currently stored topics: removed topics are dropped,
+   * topics not described on this refresh and described topics with unchanged partitions
+   * metadata are reused as is. Topic configs are not loaded here, see
+   * {@link TopicConfigsService}.
+   */
+  private Mono<List<InternalTopic>> refreshTopicsData(KafkaCluster cluster,
+                                                      InternalClusterSnapshot snapshot) {
+    final Map<String, InternalTopic> current =
+        Optional.ofNullable(cluster.getTopics()).orElse(Collections.emptyMap());
+    return Mono.fromSupplier(() ->
+        mergeTopics(current, snapshot.getTopicNames(), snapshot.getTopicDescriptions()));
+  }
+
+  static List<InternalTopic> mergeTopics(Map<String, InternalTopic> current,
+                                         Collection<String> names,
+                                         Map<String, TopicDescription> descriptions) {
+    return names.stream()
+        .map(name -> {
+          final TopicDescription description = descriptions.get(name);
+          if (description == null) {
+            return current.get(name);
+          }
+          return mergeWithCurrent(ClusterUtil.mapToInternalTopic(description), current.get(name));
+        })
+        .filter(Objects::nonNull)
+        .collect(Collectors.toList());
   }
 
-  @SneakyThrows
-  private Mono<List<InternalTopic>> getTopicsData(AdminClient adminClient) {
-    return ClusterUtil.toMono(adminClient.listTopics(LIST_TOPICS_OPTIONS).names())
-        .flatMap(topics -> getTopicsData(adminClient, topics).collectList());
+  private static InternalTopic mergeWithCurrent(InternalTopic described, InternalTopic current) {
+    if (current != null && sameMetadata(current, described)) {
+      return current;
+    }
+    return described;
   }
 
-  private Flux<InternalTopic> getTopicsData(AdminClient adminClient, Collection<String> topics) {
-    final Mono<Map<String, List<InternalTopicConfig>>> configsMono =
-        loadTopicsConfig(adminClient, topics);
+  /**
+   * Whether partition leaders and replicas (with their in-sync state) of the topic are the same,
+   * other partition stats (offsets, segments) are not compared.
+   */
+  static boolean sameMetadata(InternalTopic current, InternalTopic described) {
+    if (current.getPartitions().size() != described.getPartitions().size()) {
+      return false;
+    }
+    return described.getPartitions().values().stream().allMatch(p -> {
+      var currentPartition = current.getPartitions().get(p.getPartition());
+      return currentPartition != null
+          && Objects.equals(currentPartition.getLeader(), p.getLeader())
+          && Objects.equals(currentPartition.getReplicas(), p.getReplicas());
+    });
+  }
 
+  private Flux<InternalTopic> getTopicsData(AdminClient adminClient, Collection<String> topics) {
     return ClusterUtil.toMono(adminClient.describeTopics(topics).all()).map(
         m -> m.values().stream().map(ClusterUtil::mapToInternalTopic).collect(Collectors.toList())
-    ).flatMap(internalTopics -> configsMono.map(configs ->
-        mergeWithConfigs(internalTopics, configs).values()
-    )).flatMapMany(Flux::fromIterable);
-  }
-
-
-  private Mono<InternalClusterMetrics> getClusterMetrics(AdminClient client) {
-    return ClusterUtil.toMono(client.describeCluster().nodes())
-        .flatMap(brokers ->
-            ClusterUtil.toMono(client.describeCluster().controller()).map(
-                c -> {
-                  InternalClusterMetrics.InternalClusterMetricsBuilder metricsBuilder =
-                      InternalClusterMetrics.builder();
-                  metricsBuilder.brokerCount(brokers.size()).activeControllers(c != null ? 1 : 0);
-                  return metricsBuilder.build();
-                }
-            )
-        );
+    ).flatMapMany(Flux::fromIterable);
+  }
+
+
+  private InternalClusterMetrics getClusterMetrics(InternalClusterSnapshot snapshot) {
+    return InternalClusterMetrics.builder()
+        .brokerCount(snapshot.getNodes().size())
+        .activeControllers(snapshot.getController() != null ? 1 : 0)
+        .build();
   }
 
   @SneakyThrows
@@ -238,12 +361,7 @@ public class KafkaService {
           topicData ->
               getTopicsData(adminClient, Collections.singleton(topicData.getName()))
                   .next()
-        ).switchIfEmpty(Mono.error(new RuntimeException("Can't find created topic")))
-        .flatMap(t ->
-            loadTopicsConfig(adminClient, Collections.singletonList(t.getName()))
-                .map(c -> mergeWithConfigs(Collections.singletonList(t), c))
-                .map(m -> m.values().iterator().next())
-        );
+        ).switchIfEmpty(Mono.error(new RuntimeException("Can't find created topic")));
   }
 
   public Mono<InternalTopic> createTopic(KafkaCluster cluster, Mono<TopicCreation> topicCreation) {
@@ -277,6 +395,12 @@ public class KafkaService {
     }).flatMap(ExtendedAdminClient::extendedAdminClient);
   }
 
+  public Mono<Map<String, List<InternalTopicConfig>>> loadTopicsConfig(
+      KafkaCluster cluster, Collection<String> topicNames) {
+    return getOrCreateAdminClient(cluster)
+        .flatMap(ac -> loadTopicsConfig(ac.getAdminClient(), topicNames));
+  }
+
   @SneakyThrows
   private Mono<Map<String, List<InternalTopicConfig>>> loadTopicsConfig(
       AdminClient adminClient, Collection<String> topicNames) {
@@ -319,11 +443,9 @@ public class KafkaService {
   }
 
   public Mono<TopicConsumerGroups> getTopicConsumerGroups(KafkaCluster cluster, String topic) {
-    final Map<TopicPartition, Long> endOffsets = topicEndOffsets(cluster, topic);
-
-    return getConsumerGroupsInternal(cluster)
-        .flatMapIterable(c ->
-            c.stream()
+    return Mono.zip(topicEndOffsets(cluster, topic), getConsumerGroupsInternal(cluster))
+        .flatMapIterable(t ->
+            t.getT2().stream()
                 .map(d -> ClusterUtil.filterConsumerGroupTopic(d, topic))
                 .filter(Optional::isPresent)
                 .map(Optional::get)
@@ -332,7 +454,7 @@ public class KafkaService {
                       .flatMapIterable(meta ->
                           d.members().stream().flatMap(m ->
                               ClusterUtil.convertToConsumerTopicPartitionDetails(
-                                  m, meta, endOffsets, d.groupId()
+                                  m, meta, t.getT1(), d.groupId()
                               ).stream()
                           ).collect(Collectors.toList())
                       )
@@ -349,33 +471,13 @@ public class KafkaService {
     ).flatMap(ClusterUtil::toMono);
   }
 
-  public Map<TopicPartition, Long> topicEndOffsets(
-      KafkaCluster cluster, String topic) {
-    try (KafkaConsumer<Bytes, Bytes> consumer = createConsumer(cluster)) {
-      final List<TopicPartition> topicPartitions = consumer.partitionsFor(topic).stream()
-          .map(i -> new TopicPartition(i.topic(), i.partition()))
-          .collect(Collectors.toList());
-      return consumer.endOffsets(topicPartitions);
-    }
-  }
-
-  public Map<TopicPartition, Long> topicPartitionsEndOffsets(
-      KafkaCluster cluster, Collection<TopicPartition> topicPartitions) {
-    try (KafkaConsumer<Bytes, Bytes> consumer = createConsumer(cluster)) {
-      return consumer.endOffsets(topicPartitions);
-    }
-  }
-
-  public KafkaConsumer<Bytes, Bytes> createConsumer(KafkaCluster cluster) {
-    Properties props = new Properties();
-    props.putAll(cluster.getProperties());
-    props.put(ConsumerConfig.CLIENT_ID_CONFIG, "kafka-ui");
-    props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, cluster.getBootstrapServers());
-    props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, BytesDeserializer.class);
-    props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, BytesDeserializer.class);
-    props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
-
-    return new KafkaConsumer<>(props);
+  private Mono<Map<TopicPartition, Long>> topicEndOffsets(KafkaCluster cluster, String topic) {
+    return Mono.justOrEmpty(cluster.getTopics()).flatMap(t -> Mono.justOrEmpty(t.get(topic)))
+        .map(t -> t.getPartitions().keySet().stream()
+            .map(p -> new TopicPartition(topic, p))
+            .collect(Collectors.toList())
+        ).flatMap(tps -> offsetsService.getLatestOffsets(cluster, tps))
+        .defaultIfEmpty(Collections.emptyMap());
   }
 
   @SneakyThrows
@@ -396,9 +498,7 @@ public class KafkaService {
   }
 
   private Mono<InternalTopic> getUpdatedTopic(ExtendedAdminClient ac, String topicName) {
-    return getTopicsData(ac.getAdminClient())
-        .map(s -> s.stream()
-            .filter(t -> t.getName().equals(topicName)).findFirst().orElseThrow());
+    return getTopicsData(ac.getAdminClient(), Collections.singleton(topicName)).next();
   }
 
   private Mono<String> incrementalAlterConfig(TopicUpdate topicUpdate, ConfigResource topicCr,
@@ -427,23 +527,33 @@ public class KafkaService {
                                        Map<TopicPartition, LongSummaryStatistics> partitions) {
     final LongSummaryStatistics stats = topics.get(topic.getName());
 
+    final Map<Integer, InternalPartition> mergedPartitions =
+        topic.getPartitions().entrySet().stream().map(e ->
+            Tuples.of(e.getKey(), mergeWithStats(topic.getName(), e.getValue(), partitions))
+        ).collect(Collectors.toMap(
+            Tuple2::getT1,
+            Tuple2::getT2
+        ));
+    if (topic.getSegmentSize() == stats.getSum()
+        && topic.getSegmentCount() == stats.getCount()
+        && topic.getPartitions().equals(mergedPartitions)) {
+      return topic;
+    }
     return topic.toBuilder()
         .segmentSize(stats.getSum())
         .segmentCount(stats.getCount())
-        .partitions(
-            topic.getPartitions().entrySet().stream().map(e ->
-                Tuples.of(e.getKey(), mergeWithStats(topic.getName(), e.getValue(), partitions))
-            ).collect(Collectors.toMap(
-                Tuple2::getT1,
-                Tuple2::getT2
-            ))
-        ).build();
+        .partitions(mergedPartitions)
+        .build();
   }
 
   private InternalPartition mergeWithStats(String topic, InternalPartition partition,
                                            Map<TopicPartition, LongSummaryStatistics> partitions) {
     final LongSummaryStatistics stats =
         partitions.get(new TopicPartition(topic, partition.getPartition()));
+    if (partition.getSegmentSize() == stats.getSum()
+        && partition.getSegmentCount() == stats.getCount()) {
+      return partition;
+    }
     return partition.toBuilder()
         .segmentSize(stats.getSum())
         .segmentCount(stats.getCount())
@@ -452,105 +562,112 @@ public class KafkaService {
 
   private Mono<InternalSegmentSizeDto> updateSegmentMetrics(AdminClient ac,
                                                             InternalClusterMetrics clusterMetrics,
-                                                            List<InternalTopic> internalTopics) {
-    List<String> names =
-        internalTopics.stream().map(InternalTopic::getName).collect(Collectors.toList());
-    return ClusterUtil.toMono(ac.describeTopics(names).all()).flatMap(topic ->
-        ClusterUtil.toMono(ac.describeCluster().nodes()).flatMap(nodes ->
-            ClusterUtil.toMono(
-                ac.describeLogDirs(nodes.stream().map(Node::id).collect(Collectors.toList())).all())
-                .map(log -> {
-                  final List<Tuple3<Integer, TopicPartition, Long>> topicPartitions =
-                      log.entrySet().stream().flatMap(b ->
-                          b.getValue().entrySet().stream().flatMap(topicMap ->
-                              topicMap.getValue().replicaInfos.entrySet().stream()
-                                  .map(e -> Tuples.of(b.getKey(), e.getKey(), e.getValue().size))
-                          )
-                      ).collect(Collectors.toList());
-
-                  final Map<TopicPartition, LongSummaryStatistics> partitionStats =
-                      topicPartitions.stream().collect(
-                          Collectors.groupingBy(
-                              Tuple2::getT2,
-                              Collectors.summarizingLong(Tuple3::getT3)
-                          )
-                      );
-
-                  final Map<String, LongSummaryStatistics> topicStats =
-                      topicPartitions.stream().collect(
-                          Collectors.groupingBy(
-                              t -> t.getT2().topic(),
-                              Collectors.summarizingLong(Tuple3::getT3)
-                          )
-                      );
-
-                  final Map<Integer, LongSummaryStatistics> brokerStats =
-                      topicPartitions.stream().collect(
-                          Collectors.groupingBy(
-                              t -> t.getT1(),
-                              Collectors.summarizingLong(Tuple3::getT3)
-                          )
-                      );
-
-
-                  final LongSummaryStatistics summary =
-                      topicPartitions.stream().collect(Collectors.summarizingLong(Tuple3::getT3));
-
-
-                  final Map<String, InternalTopic> resultTopics = internalTopics.stream().map(e ->
-                      Tuples.of(e.getName(), mergeWithStats(e, topicStats, partitionStats))
-                  ).collect(Collectors.toMap(
-                      Tuple2::getT1,
-                      Tuple2::getT2
-                  ));
-
-                  final Map<Integer, InternalBrokerDiskUsage> resultBrokers =
-                      brokerStats.entrySet().stream().map(e ->
-                          Tuples.of(e.getKey(), InternalBrokerDiskUsage.builder()
-                              .segmentSize(e.getValue().getSum())
-                              .segmentCount(e.getValue().getCount())
-                              .build()
-                          )
-                      ).collect(Collectors.toMap(
-                          Tuple2::getT1,
-                          Tuple2::getT2
-                      ));
-
-                  return InternalSegmentSizeDto.builder()
-                      .clusterMetricsWithSegmentSize(
-                          clusterMetrics.toBuilder()
-                              .segmentSize(summary.getSum())
-                              .segmentCount(summary.getCount())
-                              .internalBrokerDiskUsage(resultBrokers)
-                              .build()
-                      )
-                      .internalTopicWithSegmentSize(resultTopics).build();
-                })
-        )
-    );
+                                                            List<InternalTopic> internalTopics,
+                                                            Collection<Node> nodes) {
+    return ClusterUtil.toMono(
+        ac.describeLogDirs(nodes.stream().map(Node::id).collect(Collectors.toList())).all())
+        .map(log -> {
+          final List<Tuple3<Integer, TopicPartition, Long>> topicPartitions =
+              log.entrySet().stream().flatMap(b ->
+                  b.getValue().entrySet().stream().flatMap(topicMap ->
+                      topicMap.getValue().replicaInfos.entrySet().stream()
+                          .map(e -> Tuples.of(b.getKey(), e.getKey(), e.getValue().size))
+                  )
+              ).collect(Collectors.toList());
+
+          final Map<TopicPartition, LongSummaryStatistics> partitionStats =
+              topicPartitions.stream().collect(
+                  Collectors.groupingBy(
+                      Tuple2::getT2,
+                      Collectors.summarizingLong(Tuple3::getT3)
+                  )
+              );
+
+          final Map<String, LongSummaryStatistics> topicStats =
+              topicPartitions.stream().collect(
+                  Collectors.groupingBy(
+                      t -> t.getT2().topic(),
+                      Collectors.summarizingLong(Tuple3::getT3)
+                  )
+              );
+
+          final Map<Integer, LongSummaryStatistics> brokerStats =
+              topicPartitions.stream().collect(
+                  Collectors.groupingBy(
+                      t -> t.getT1(),
+                      Collectors.summarizingLong(Tuple3::getT3)
+                  )
+              );
+
+
+          final LongSummaryStatistics summary =
+              topicPartitions.stream().collect(Collectors.summarizingLong(Tuple3::getT3));
+
+
+          final Map<String, InternalTopic> resultTopics = internalTopics.stream().map(e ->
+              Tuples.of(e.getName(), mergeWithStats(e, topicStats, partitionStats))
+          ).collect(Collectors.toMap(
+              Tuple2::getT1,
+              Tuple2::getT2
+          ));
+
+          final Map<Integer, InternalBrokerDiskUsage> resultBrokers =
+              brokerStats.entrySet().stream().map(e ->
+                  Tuples.of(e.getKey(), InternalBrokerDiskUsage.builder()
+                      .segmentSize(e.getValue().getSum())
+                      .segmentCount(e.getValue().getCount())
+                      .build()
+                  )
+              ).collect(Collectors.toMap(
+                  Tuple2::getT1,
+                  Tuple2::getT2
+              ));
+
+          return InternalSegmentSizeDto.builder()
+              .clusterMetricsWithSegmentSize(
+                  clusterMetrics.toBuilder()
+                      .segmentSize(summary.getSum())
+                      .segmentCount(summary.getCount())
+                      .internalBrokerDiskUsage(resultBrokers)
+                      .build()
+              )
+              .internalTopicWithSegmentSize(resultTopics).build();
+        });
   }
 
-  public List<Metric> getJmxMetric(String clusterName, Node node) {
-    return clustersStorage.getClusterByName(clusterName)
+  public Mono<List<InternalMetric>> getJmxMetric(String clusterName, Node node) {
+    return Mono.justOrEmpty(clustersStorage.getClusterByName(clusterName))
         .filter(c -> c.getJmxPort() != null)
         .filter(c -> c.getJmxPort() > 0)
-        .map(c -> jmxClusterUtil.getJmxMetrics(c.getJmxPort(), node.host()))
-        .orElse(Collections.emptyList());
+        .flatMap(c -> jmxClusterUtil.getJmxMetrics(c.getJmxPort(), node.host()))
+        .defaultIfEmpty(Collections.emptyList());
   }
 
   private Mono<InternalClusterMetrics> fillJmxMetrics(InternalClusterMetrics internalClusterMetrics,
-                                                      String clusterName, AdminClient ac) {
-    return fillBrokerMetrics(internalClusterMetrics, clusterName, ac)
+                                                      String clusterName, Collection<Node> nodes) {
+    return fillBrokerMetrics(internalClusterMetrics, clusterName, nodes)
         .map(this::calculateClusterMetrics);
   }
 
+  /**
+   * Brokers are queried in parallel, broker that failed or timed out gets empty metrics
+   * with jmxError set instead of failing the whole cluster refresh.
+   */
   private Mono<InternalClusterMetrics> fillBrokerMetrics(
-      InternalClusterMetrics internalClusterMetrics, String clusterName, AdminClient ac) {
-    return ClusterUtil.toMono(ac.describeCluster().nodes())
-        .flatMapIterable(nodes -> nodes)
-        .map(broker ->
-            Map.of(broker.id(), InternalBrokerMetrics.builder()
-                .metrics(getJmxMetric(clusterName, broker)).build())
+      InternalClusterMetrics internalClusterMetrics, String clusterName, Collection<Node> nodes) {
+    return Flux.fromIterable(nodes)
+        .flatMap(broker ->
+            getJmxMetric(clusterName, broker)
+                .map(metrics -> InternalBrokerMetrics.builder().metrics(metrics).build())
+                .onErrorResume(e -> {
+                  log.warn("Cannot get jmx metrics from broker {} of cluster {}",
+                      broker.id(), clusterName, e);
+                  return Mono.just(InternalBrokerMetrics.builder()
+                      .metrics(Collections.emptyList())
+                      .jmxError(e.toString())
+                      .build());
+                })
+                .map(metrics -> Map.of(broker.id(), metrics))
         )
         .collectList()
         .map(s -> internalClusterMetrics.toBuilder()
@@ -559,17 +676,14 @@ public class KafkaService {
 
   private InternalClusterMetrics calculateClusterMetrics(
       InternalClusterMetrics internalClusterMetrics) {
-    final List<Metric> metrics = internalClusterMetrics.getInternalBrokerMetrics().values().stream()
-        .flatMap(b -> b.getMetrics().stream())
-        .collect(
-            Collectors.groupingBy(
-                Metric::getCanonicalName,
-                Collectors.reducing(jmxClusterUtil::reduceJmxMetrics)
-            )
-        ).values().stream()
-        .filter(Optional::isPresent)
-        .map(Optional::get)
-        .collect(Collectors.toList());
+    final Map<String, InternalMetric> reduced = new HashMap<>();
+    for (InternalBrokerMetrics brokerMetrics
+        : internalClusterMetrics.getInternalBrokerMetrics().values()) {
+      for (InternalMetric metric : brokerMetrics.getMetrics()) {
+        reduced.merge(metric.getCanonicalName(), metric, jmxClusterUtil::reduceJmxMetrics);
+      }
+    }
+    final List<InternalMetric> metrics = new ArrayList<>(reduced.values());
     final InternalClusterMetrics.InternalClusterMetricsBuilder metricsBuilder =
         internalClusterMetrics.toBuilder().metrics(metrics);
     metricsBuilder.bytesInPerSec(findTopicMetrics(
@@ -581,21 +695,25 @@ public class KafkaService {
     return metricsBuilder.build();
   }
 
-  private Map<String, BigDecimal> findTopicMetrics(List<Metric> metrics, JmxMetricsName metricsName,
-                                                   JmxMetricsValueName valueName) {
-    return metrics.stream().filter(m -> metricsName.name().equals(m.getName()))
-        .filter(m -> m.getParams().containsKey("topic"))
-        .filter(m -> m.getValue().containsKey(valueName.name()))
-        .map(m -> Tuples.of(
-            m.getParams().get("topic"),
-            m.getValue().get(valueName.name())
-        )).collect(Collectors.groupingBy(
-            Tuple2::getT1,
-            Collectors.reducing(BigDecimal.ZERO, Tuple2::getT2, BigDecimal::add)
-        ));
+  private Map<String, Double> findTopicMetrics(List<InternalMetric> metrics,
+                                               JmxMetricsName metricsName,
+                                               JmxMetricsValueName valueName) {
+    final Map<String, Double> result = new HashMap<>();
+    for (InternalMetric metric : metrics) {
+      final String topic = metric.getParams().get("topic");
+      if (topic == null || !metricsName.name().equals(metric.getName())) {
+        continue;
+      }
+      final double value = metric.getValue(valueName.name());
+      if (!Double.isNaN(value)) {
+        result.merge(topic, value, Double::sum);
+      }
+    }
+    return result;
   }
 
-  public Map<Integer, InternalPartition> getTopicPartitions(KafkaCluster c, InternalTopic topic) {
+  public Mono<Map<Integer, InternalPartition>> getTopicPartitions(KafkaCluster c,
+                                                                  InternalTopic topic) {
     var tps = topic.getPartitions().values().stream()
         .map(t -> new TopicPartition(topic.getName(), t.getPartition()))
         .collect(Collectors.toList());
@@ -605,22 +723,20 @@ public class KafkaService {
             tp -> tp
         ));
 
-    try (var consumer = createConsumer(c)) {
-      final Map<TopicPartition, Long> earliest = consumer.beginningOffsets(tps);
-      final Map<TopicPartition, Long> latest = consumer.endOffsets(tps);
-
-      return tps.stream()
-          .map(tp -> partitions.get(tp.partition()).toBuilder()
-              .offsetMin(Optional.ofNullable(earliest.get(tp)).orElse(0L))
-              .offsetMax(Optional.ofNullable(latest.get(tp)).orElse(0L))
-              .build()
-          ).collect(Collectors.toMap(
-              InternalPartition::getPartition,
-              tp -> tp
-          ));
-    } catch (Exception e) {
-      return Collections.emptyMap();
-    }
+    return Mono.zip(
+        offsetsService.getEarliestOffsets(c, tps),
+        offsetsService.getLatestOffsets(c, tps)
+    ).map(offsets ->
+        tps.stream()
+            .map(tp -> partitions.get(tp.partition()).toBuilder()
+                .offsetMin(Optional.ofNullable(offsets.getT1().get(tp)).orElse(0L))
+                .offsetMax(Optional.ofNullable(offsets.getT2().get(tp)).orElse(0L))
+                .build()
+            ).collect(Collectors.toMap(
+                InternalPartition::getPartition,
+                tp -> tp
+            ))
+    ).onErrorReturn(Collections.emptyMap());
   }
 
   public Mono<Void> deleteTopicMessages(KafkaCluster cluster, Map<TopicPartition, Long> offsets) {
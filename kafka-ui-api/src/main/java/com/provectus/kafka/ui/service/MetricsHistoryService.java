@@ -0,0 +1,190 @@
+package com.provectus.kafka.ui.service;
+
+import com.provectus.kafka.ui.model.InternalBrokerMetrics;
+import com.provectus.kafka.ui.model.InternalClusterMetrics;
+import com.provectus.kafka.ui.model.InternalTopic;
+import com.provectus.kafka.ui.model.KafkaCluster;
+import com.provectus.kafka.ui.model.MetricHistory;
+import com.provectus.kafka.ui.model.MetricHistoryName;
+import com.provectus.kafka.ui.model.MetricHistoryPoint;
+import com.provectus.kafka.ui.model.ServerStatus;
+import com.provectus.kafka.ui.util.JmxMetricsName;
+import com.provectus.kafka.ui.util.JmxMetricsValueName;
+import com.provectus.kafka.ui.util.MetricTimeSeries;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * In-memory history of cluster, broker and topic level metrics, fed by scheduled
+ * metrics updates. Every series is bounded, so memory usage depends only on number of
+ * brokers and topics. Per-topic history is disabled by default, as on clusters with many
+ * topics it takes much more memory than everything else.
+ */
+@Service
+@RequiredArgsConstructor
+public class MetricsHistoryService {
+
+  private static final String CLUSTER_SCOPE = "cluster";
+  private static final String BROKER_SCOPE = "broker:";
+  private static final String TOPIC_SCOPE = "topic:";
+
+  private final ClustersStorage clustersStorage;
+  private final Map<String, Map<String, MetricTimeSeries>> history = new ConcurrentHashMap<>();
+
+  @Value("${kafka.metrics-history.raw-points:120}")
+  private int rawPoints;
+  @Value("${kafka.metrics-history.downsampled-points:288}")
+  private int downsampledPoints;
+  @Value("${kafka.metrics-history.downsample-interval-ms:300000}")
+  private long downsampleIntervalMs;
+  @Value("${kafka.metrics-history.topics-enabled:false}")
+  private boolean topicsEnabled;
+
+  @PostConstruct
+  void validate() {
+    if (downsampleIntervalMs <= 0) {
+      throw new IllegalStateException(
+          "kafka.metrics-history.downsample-interval-ms should be positive, but was "
+              + downsampleIntervalMs);
+    }
+  }
+
+  public void record(KafkaCluster cluster) {
+    record(cluster, System.currentTimeMillis());
+  }
+
+  void record(KafkaCluster cluster, long timestamp) {
+    final InternalClusterMetrics metrics = cluster.getMetrics();
+    if (cluster.getStatus() != ServerStatus.ONLINE || metrics == null) {
+      return;
+    }
+    final Map<String, MetricTimeSeries> series =
+        history.computeIfAbsent(cluster.getName(), k -> new ConcurrentHashMap<>());
+
+    add(series, CLUSTER_SCOPE, MetricHistoryName.BYTES_IN_PER_SEC, timestamp,
+        sum(metrics.getBytesInPerSec()));
+    add(series, CLUSTER_SCOPE, MetricHistoryName.BYTES_OUT_PER_SEC, timestamp,
+        sum(metrics.getBytesOutPerSec()));
+    add(series, CLUSTER_SCOPE, MetricHistoryName.SEGMENT_SIZE, timestamp,
+        metrics.getSegmentSize());
+    add(series, CLUSTER_SCOPE, MetricHistoryName.UNDER_REPLICATED_PARTITIONS, timestamp,
+        metrics.getUnderReplicatedPartitionCount());
+    add(series, CLUSTER_SCOPE, MetricHistoryName.OFFLINE_PARTITIONS, timestamp,
+        metrics.getOfflinePartitionCount());
+    add(series, CLUSTER_SCOPE, MetricHistoryName.OUT_OF_SYNC_REPLICAS, timestamp,
+        metrics.getOutOfSyncReplicasCount());
+
+    final Set<String> brokerScopes = new HashSet<>();
+    if (metrics.getInternalBrokerDiskUsage() != null) {
+      metrics.getInternalBrokerDiskUsage().keySet()
+          .forEach(id -> brokerScopes.add(BROKER_SCOPE + id));
+      metrics.getInternalBrokerDiskUsage().forEach((id, usage) ->
+          add(series, BROKER_SCOPE + id, MetricHistoryName.SEGMENT_SIZE, timestamp,
+              usage.getSegmentSize())
+      );
+    }
+    if (metrics.getInternalBrokerMetrics() != null) {
+      metrics.getInternalBrokerMetrics().keySet()
+          .forEach(id -> brokerScopes.add(BROKER_SCOPE + id));
+      metrics.getInternalBrokerMetrics().forEach((id, brokerMetrics) -> {
+        brokerRate(brokerMetrics, JmxMetricsName.BytesInPerSec).ifPresent(v ->
+            add(series, BROKER_SCOPE + id, MetricHistoryName.BYTES_IN_PER_SEC, timestamp, v));
+        brokerRate(brokerMetrics, JmxMetricsName.BytesOutPerSec).ifPresent(v ->
+            add(series, BROKER_SCOPE + id, MetricHistoryName.BYTES_OUT_PER_SEC, timestamp, v));
+      });
+    }
+
+    // history of removed brokers is not needed anymore
+    series.keySet().removeIf(key -> key.startsWith(BROKER_SCOPE)
+        && !brokerScopes.contains(scopeOf(key)));
+
+    final Map<String, InternalTopic> topics = topicsEnabled
+        ? Optional.ofNullable(cluster.getTopics()).orElse(Map.of())
+        : Map.of();
+    for (InternalTopic topic : topics.values()) {
+      final String scope = TOPIC_SCOPE + topic.getName();
+      add(series, scope, MetricHistoryName.BYTES_IN_PER_SEC, timestamp,
+          topicValue(metrics.getBytesInPerSec(), topic.getName()));
+      add(series, scope, MetricHistoryName.BYTES_OUT_PER_SEC, timestamp,
+          topicValue(metrics.getBytesOutPerSec(), topic.getName()));
+      add(series, scope, MetricHistoryName.SEGMENT_SIZE, timestamp, topic.getSegmentSize());
+      add(series, scope, MetricHistoryName.UNDER_REPLICATED_PARTITIONS, timestamp,
+          topic.getUnderReplicatedPartitions());
+      add(series, scope, MetricHistoryName.OFFLINE_PARTITIONS, timestamp,
+          topic.getPartitions().values().stream().filter(p -> p.getLeader() == null).count());
+      add(series, scope, MetricHistoryName.OUT_OF_SYNC_REPLICAS, timestamp,
+          topic.getReplicas() - topic.getInSyncReplicas());
+    }
+    // history of deleted topics is not needed anymore
+    series.keySet().removeIf(key -> key.startsWith(TOPIC_SCOPE)
+        && !topics.containsKey(scopeOf(key).substring(TOPIC_SCOPE.length())));
+  }
+
+  public Mono<MetricHistory> getHistory(String clusterName, MetricHistoryName metric,
+                                        Integer brokerId, String topic, Long from, Long to) {
+    return Mono.justOrEmpty(clustersStorage.getClusterByName(clusterName)).map(c -> {
+      final String scope = topic != null
+          ? TOPIC_SCOPE + topic
+          : brokerId != null ? BROKER_SCOPE + brokerId : CLUSTER_SCOPE;
+      final List<MetricHistoryPoint> points = new ArrayList<>();
+      Optional.ofNullable(history.get(clusterName))
+          .map(s -> s.get(key(scope, metric)))
+          .ifPresent(s -> s.forEach(
+              Optional.ofNullable(from).orElse(0L),
+              Optional.ofNullable(to).orElse(Long.MAX_VALUE),
+              (ts, value) -> points.add(new MetricHistoryPoint().timestamp(ts).value(value))
+          ));
+      return new MetricHistory().metric(metric).points(points);
+    });
+  }
+
+  private void add(Map<String, MetricTimeSeries> series, String scope, MetricHistoryName metric,
+                   long timestamp, double value) {
+    series.computeIfAbsent(key(scope, metric),
+        k -> new MetricTimeSeries(rawPoints, downsampledPoints, downsampleIntervalMs)
+    ).add(timestamp, value);
+  }
+
+  private static String key(String scope, MetricHistoryName metric) {
+    return scope + "|" + metric.name();
+  }
+
+  private static String scopeOf(String key) {
+    return key.substring(0, key.lastIndexOf('|'));
+  }
+
+  private static double sum(Map<String, Double> values) {
+    if (values == null) {
+      return 0;
+    }
+    double result = 0;
+    for (double value : values.values()) {
+      result += value;
+    }
+    return result;
+  }
+
+  private static double topicValue(Map<String, Double> values, String topic) {
+    return Optional.ofNullable(values).map(v -> v.get(topic)).orElse(0.0);
+  }
+
+  private static Optional<Double> brokerRate(InternalBrokerMetrics brokerMetrics,
+                                             JmxMetricsName name) {
+    return brokerMetrics.getMetrics().stream()
+        .filter(m -> name.name().equals(m.getName()))
+        .filter(m -> !m.getParams().containsKey("topic"))
+        .map(m -> m.getValue(JmxMetricsValueName.FiveMinuteRate.name()))
+        .filter(v -> !Double.isNaN(v))
+        .findFirst();
+  }
+}
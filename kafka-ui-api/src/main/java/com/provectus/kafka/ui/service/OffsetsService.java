@@ -0,0 +1,190 @@
+package com.provectus.kafka.ui.service;
+
+import com.provectus.kafka.ui.model.KafkaCluster;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.log4j.Log4j2;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Single entry point for partitions beginning/end offsets lookups.
+ * Lookups for many partitions (possibly from different topics) are issued as one batched
+ * request, concurrent requests for the same partitions share one in-flight lookup and results
+ * are served from a short-TTL cache. Expired offsets are swept out of the cache, and offsets of
+ * topics removed from the cluster are dropped on every cluster refresh. Partitions missing from
+ * lookup response are not cached and are absent from the result.
+ */
+@Service
+@RequiredArgsConstructor
+@Log4j2
+public class OffsetsService {
+
+  private final KafkaConsumerPool consumerPool;
+  private final Map<CacheKey, OffsetsCache> caches = new ConcurrentHashMap<>();
+
+  @org.springframework.beans.factory.annotation.Value("${kafka.offsets-cache.ttl-ms:5000}")
+  private long cacheTtlMs;
+
+  public Mono<Map<TopicPartition, Long>> getEarliestOffsets(KafkaCluster cluster,
+                                                            Collection<TopicPartition> partitions) {
+    return getOffsets(cluster, OffsetSpec.EARLIEST, partitions);
+  }
+
+  public Mono<Map<TopicPartition, Long>> getLatestOffsets(KafkaCluster cluster,
+                                                          Collection<TopicPartition> partitions) {
+    return getOffsets(cluster, OffsetSpec.LATEST, partitions);
+  }
+
+  /**
+   * Drops cached offsets of topic's partitions, should be called when topic's data was changed
+   * by kafka-ui itself (messages deletion, topic removal). Lookups started before invalidation
+   * are not shared with new requests and their results are not cached.
+   */
+  public void invalidate(KafkaCluster cluster, String topic) {
+    for (OffsetSpec spec : OffsetSpec.values()) {
+      var cache = caches.get(new CacheKey(cluster.getName(), spec));
+      if (cache != null) {
+        cache.generation.incrementAndGet();
+        cache.inFlight.keySet().removeIf(tp -> tp.topic().equals(topic));
+        cache.values.keySet().removeIf(tp -> tp.topic().equals(topic));
+      }
+    }
+  }
+
+  /**
+   * Drops cached offsets of topics which are not present in the cluster anymore.
+   */
+  public void retainTopics(KafkaCluster cluster) {
+    if (cluster.getTopics() == null) {
+      return;
+    }
+    for (OffsetSpec spec : OffsetSpec.values()) {
+      var cache = caches.get(new CacheKey(cluster.getName(), spec));
+      if (cache != null) {
+        cache.values.keySet().removeIf(tp -> !cluster.getTopics().containsKey(tp.topic()));
+      }
+    }
+  }
+
+  private Mono<Map<TopicPartition, Long>> getOffsets(KafkaCluster cluster, OffsetSpec spec,
+                                                     Collection<TopicPartition> partitions) {
+    return Mono.defer(() -> {
+      final OffsetsCache cache =
+          caches.computeIfAbsent(new CacheKey(cluster.getName(), spec), k -> new OffsetsCache());
+      final long now = System.currentTimeMillis();
+      evictExpired(cache, now);
+
+      final Map<TopicPartition, Long> result = new HashMap<>();
+      final Map<TopicPartition, CompletableFuture<Long>> awaiting = new HashMap<>();
+      final Map<TopicPartition, CompletableFuture<Long>> toFetch = new HashMap<>();
+      for (TopicPartition tp : partitions) {
+        CachedOffset cached = cache.values.get(tp);
+        if (cached != null && now - cached.getFetchedAt() < cacheTtlMs) {
+          result.put(tp, cached.getOffset());
+          continue;
+        }
+        var future = new CompletableFuture<Long>();
+        var inFlight = cache.inFlight.putIfAbsent(tp, future);
+        if (inFlight != null) {
+          awaiting.put(tp, inFlight);
+        } else {
+          toFetch.put(tp, future);
+        }
+      }
+
+      if (!toFetch.isEmpty()) {
+        fetch(cluster, spec, cache, toFetch);
+        awaiting.putAll(toFetch);
+      }
+      if (awaiting.isEmpty()) {
+        return Mono.just(result);
+      }
+      return Mono.fromFuture(
+          CompletableFuture.allOf(awaiting.values().toArray(CompletableFuture[]::new))
+      ).then(Mono.fromSupplier(() -> {
+        awaiting.forEach((tp, f) -> {
+          final Long offset = f.join();
+          if (offset != null) {
+            result.put(tp, offset);
+          }
+        });
+        return result;
+      }));
+    });
+  }
+
+  private void evictExpired(OffsetsCache cache, long now) {
+    // sweeping at most once per ttl keeps lookups cheap
+    if (now - cache.sweptAt < cacheTtlMs) {
+      return;
+    }
+    cache.sweptAt = now;
+    cache.values.values().removeIf(c -> now - c.getFetchedAt() >= cacheTtlMs);
+  }
+
+  private void fetch(KafkaCluster cluster, OffsetSpec spec, OffsetsCache cache,
+                     Map<TopicPartition, CompletableFuture<Long>> toFetch) {
+    final long generation = cache.generation.get();
+    Mono.fromCallable(() ->
+        consumerPool.withConsumer(cluster, consumer ->
+            spec == OffsetSpec.EARLIEST
+                ? consumer.beginningOffsets(toFetch.keySet())
+                : consumer.endOffsets(toFetch.keySet())
+        )
+    ).subscribeOn(Schedulers.boundedElastic()).subscribe(
+        offsets -> {
+          final long fetchedAt = System.currentTimeMillis();
+          toFetch.forEach((tp, future) -> {
+            Long offset = offsets.get(tp);
+            // offsets fetched before invalidation could be stale already
+            if (offset != null && cache.generation.get() == generation) {
+              cache.values.put(tp, new CachedOffset(offset, fetchedAt));
+            }
+            cache.inFlight.remove(tp, future);
+            future.complete(offset);
+          });
+        },
+        e -> {
+          log.error("Error fetching {} offsets for cluster {}", spec, cluster.getName(), e);
+          toFetch.forEach((tp, future) -> {
+            cache.inFlight.remove(tp, future);
+            future.completeExceptionally(e);
+          });
+        }
+    );
+  }
+
+  private enum OffsetSpec {
+    EARLIEST,
+    LATEST
+  }
+
+  @Value
+  private static class CacheKey {
+    String cluster;
+    OffsetSpec spec;
+  }
+
+  @Value
+  private static class CachedOffset {
+    long offset;
+    long fetchedAt;
+  }
+
+  private static class OffsetsCache {
+    final Map<TopicPartition, CachedOffset> values = new ConcurrentHashMap<>();
+    final Map<TopicPartition, CompletableFuture<Long>> inFlight = new ConcurrentHashMap<>();
+    // incremented on every invalidation
+    final AtomicLong generation = new AtomicLong();
+    volatile long sweptAt;
+  }
+}
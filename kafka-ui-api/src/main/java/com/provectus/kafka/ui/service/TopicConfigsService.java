@@ -0,0 +1,121 @@
+package com.provectus.kafka.ui.service;
+
+import com.provectus.kafka.ui.model.InternalTopicConfig;
+import com.provectus.kafka.ui.model.KafkaCluster;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Topic configs are loaded lazily on first access per topic and cached, instead of being
+ * loaded with every topics metadata refresh. Configs change rarely, so cached configs are
+ * refreshed on a separate slow schedule in bounded batches, and configs of topics changed by
+ * kafka-ui itself are invalidated right away. Configs restored from cluster snapshot on startup
+ * are served until the first scheduled refresh.
+ */
+@Service
+@RequiredArgsConstructor
+@Log4j2
+public class TopicConfigsService {
+
+  private final KafkaService kafkaService;
+  private final ClustersStorage clustersStorage;
+  private final ClusterSnapshotStore clusterSnapshotStore;
+  // cluster name -> cached configs
+  private final Map<String, ConfigsCache> configs = new ConcurrentHashMap<>();
+
+  @Value("${kafka.topic-configs-refresh-batch-size:100}")
+  private int refreshBatchSize;
+
+  @PostConstruct
+  public void init() {
+    for (KafkaCluster cluster : clustersStorage.getKafkaClusters()) {
+      getCache(cluster).configs.putAll(
+          clusterSnapshotStore.takeRestoredTopicConfigs(cluster.getName()));
+    }
+  }
+
+  public Mono<List<InternalTopicConfig>> getTopicConfigs(KafkaCluster cluster, String topic) {
+    return Mono.defer(() -> {
+      final ConfigsCache cache = getCache(cluster);
+      final List<InternalTopicConfig> cached = cache.configs.get(topic);
+      if (cached != null) {
+        return Mono.just(cached);
+      }
+      final long generation = cache.generation.get();
+      return kafkaService.loadTopicsConfig(cluster, List.of(topic))
+          .doOnNext(loaded -> {
+            // configs loaded before invalidation could be stale already
+            synchronized (cache) {
+              if (cache.generation.get() == generation) {
+                loaded.forEach(cache.configs::putIfAbsent);
+              }
+            }
+          })
+          .flatMap(loaded -> Mono.justOrEmpty(loaded.get(topic)));
+    });
+  }
+
+  /**
+   * Drops cached configs of topic, should be called when topic was created, changed or
+   * removed by kafka-ui itself.
+   */
+  public void invalidate(KafkaCluster cluster, String topic) {
+    final ConfigsCache cache = getCache(cluster);
+    synchronized (cache) {
+      cache.generation.incrementAndGet();
+      cache.configs.remove(topic);
+    }
+  }
+
+  /**
+   * Returns copy of currently cached configs of cluster's topics.
+   */
+  public Map<String, List<InternalTopicConfig>> getCachedConfigs(KafkaCluster cluster) {
+    return Map.copyOf(getCache(cluster).configs);
+  }
+
+  @Scheduled(fixedRateString = "${kafka.topic-configs-refresh-interval-ms:300000}",
+      initialDelayString = "${kafka.topic-configs-refresh-interval-ms:300000}")
+  public void refreshConfigs() {
+    Flux.fromIterable(clustersStorage.getKafkaClusters())
+        .filter(c -> c.getTopics() != null && configs.containsKey(c.getName()))
+        .concatMap(this::refreshConfigs)
+        .subscribe();
+  }
+
+  private Flux<Map<String, List<InternalTopicConfig>>> refreshConfigs(KafkaCluster cluster) {
+    final Map<String, List<InternalTopicConfig>> cache = getCache(cluster).configs;
+    // only configs which were accessed are refreshed, removed topics are dropped
+    cache.keySet().retainAll(cluster.getTopics().keySet());
+    return Flux.fromIterable(new ArrayList<>(cache.keySet()))
+        .buffer(refreshBatchSize)
+        .concatMap(batch -> kafkaService.loadTopicsConfig(cluster, batch))
+        // replace keeps configs invalidated during refresh out of cache
+        .doOnNext(loaded -> loaded.forEach(cache::replace))
+        .onErrorResume(e -> {
+          log.error("Error refreshing topic configs for cluster {}", cluster.getName(), e);
+          return Mono.empty();
+        });
+  }
+
+  private ConfigsCache getCache(KafkaCluster cluster) {
+    return configs.computeIfAbsent(cluster.getName(), k -> new ConfigsCache());
+  }
+
+  private static class ConfigsCache {
+    final Map<String, List<InternalTopicConfig>> configs = new ConcurrentHashMap<>();
+    // incremented on every invalidation
+    final AtomicLong generation = new AtomicLong();
+  }
+}
@@ -0,0 +1,132 @@
+package com.provectus.kafka.ui.service;
+
+import com.provectus.kafka.ui.model.InternalClusterMetrics;
+import com.provectus.kafka.ui.model.InternalTopic;
+import com.provectus.kafka.ui.model.SortOrder;
+import com.provectus.kafka.ui.model.TopicColumnsToSort;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Topics of one cluster sorted by every sortable column. Index is built once for every
+ * topics metadata (and metrics) update, so listing requests only filter and slice
+ * prebuilt lists.
+ */
+class TopicsIndex {
+
+  private final Map<String, InternalTopic> topics;
+  private final InternalClusterMetrics metrics;
+  private final Map<TopicColumnsToSort, List<InternalTopic>> sorted =
+      new EnumMap<>(TopicColumnsToSort.class);
+  // lower-cased names, so search doesn't convert names on every request
+  private final Map<String, String> searchNames;
+
+  TopicsIndex(Map<String, InternalTopic> topics, InternalClusterMetrics metrics) {
+    this.topics = topics;
+    this.metrics = metrics;
+    final Map<String, Double> bytesIn = metrics != null && metrics.getBytesInPerSec() != null
+        ? metrics.getBytesInPerSec() : Map.of();
+    final Map<String, Double> bytesOut = metrics != null && metrics.getBytesOutPerSec() != null
+        ? metrics.getBytesOutPerSec() : Map.of();
+    final List<InternalTopic> byName = new ArrayList<>(topics.values());
+    byName.sort(Comparator.comparing(InternalTopic::getName));
+    for (TopicColumnsToSort column : TopicColumnsToSort.values()) {
+      final List<InternalTopic> list;
+      switch (column) {
+        case NAME:
+          list = byName;
+          break;
+        case TOTAL_PARTITIONS:
+          list = sortBy(byName, Comparator.comparingInt(InternalTopic::getPartitionCount));
+          break;
+        case OUT_OF_SYNC_REPLICAS:
+          list = sortBy(byName,
+              Comparator.comparingInt(t -> t.getReplicas() - t.getInSyncReplicas()));
+          break;
+        case SEGMENT_SIZE:
+          list = sortBy(byName, Comparator.comparingLong(InternalTopic::getSegmentSize));
+          break;
+        case BYTES_IN:
+          list = sortBy(byName, Comparator.comparingDouble(rate(bytesIn)));
+          break;
+        case BYTES_OUT:
+          list = sortBy(byName, Comparator.comparingDouble(rate(bytesOut)));
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown column " + column);
+      }
+      sorted.put(column, Collections.unmodifiableList(list));
+    }
+    this.searchNames = topics.keySet().stream()
+        .collect(Collectors.toMap(n -> n, String::toLowerCase));
+  }
+
+  boolean isBuiltFrom(Map<String, InternalTopic> topics, InternalClusterMetrics metrics) {
+    return this.topics == topics && this.metrics == metrics;
+  }
+
+  /**
+   * Returns topics matching search and internal flag, ordered by column. Filtering is
+   * skipped entirely when there are no conditions.
+   */
+  List<InternalTopic> find(String search, boolean showInternal, TopicColumnsToSort orderBy,
+                           SortOrder sortOrder) {
+    List<InternalTopic> result = sorted.get(orderBy);
+    if (sortOrder == SortOrder.DESC) {
+      result = reversed(result);
+    }
+    final Predicate<InternalTopic> predicate = predicate(search, showInternal);
+    if (predicate == null) {
+      return result;
+    }
+    return result.stream().filter(predicate).collect(Collectors.toList());
+  }
+
+  private Predicate<InternalTopic> predicate(String search, boolean showInternal) {
+    Predicate<InternalTopic> predicate = null;
+    if (search != null && !search.isBlank()) {
+      final String term = search.trim().toLowerCase();
+      predicate = t -> searchNames.get(t.getName()).contains(term);
+    }
+    if (!showInternal) {
+      final Predicate<InternalTopic> external = t -> !t.isInternal();
+      predicate = predicate != null ? predicate.and(external) : external;
+    }
+    return predicate;
+  }
+
+  private static ToDoubleFunction<InternalTopic> rate(Map<String, Double> rates) {
+    return t -> rates.getOrDefault(t.getName(), 0.0);
+  }
+
+  private static List<InternalTopic> sortBy(List<InternalTopic> byName,
+                                            Comparator<InternalTopic> comparator) {
+    // sort is stable, so topics with equal values stay ordered by name
+    final List<InternalTopic> list = new ArrayList<>(byName);
+    list.sort(comparator);
+    return list;
+  }
+
+  private static List<InternalTopic> reversed(List<InternalTopic> list) {
+    // view instead of copy, so descending order costs nothing
+    return new AbstractList<>() {
+      @Override
+      public InternalTopic get(int index) {
+        return list.get(list.size() - 1 - index);
+      }
+
+      @Override
+      public int size() {
+        return list.size();
+      }
+    };
+  }
+}
@@ -196,6 +196,13 @@ public class ClusterUtil {
 
   public static TopicMessage mapToTopicMessage(ConsumerRecord<Bytes, Bytes> consumerRecord,
                                                RecordDeserializer recordDeserializer) {
+    return mapToTopicMessage(consumerRecord, recordDeserializer.deserializeKey(consumerRecord),
+        recordDeserializer);
+  }
+
+  public static TopicMessage mapToTopicMessage(ConsumerRecord<Bytes, Bytes> consumerRecord,
+                                               String key,
+                                               RecordDeserializer recordDeserializer) {
     Map<String, String> headers = new HashMap<>();
     consumerRecord.headers().iterator()
         .forEachRemaining(header -> headers.put(header.key(), new String(header.value())));
@@ -210,9 +217,7 @@ public class ClusterUtil {
     topicMessage.setOffset(consumerRecord.offset());
     topicMessage.setTimestamp(timestamp);
     topicMessage.setTimestampType(timestampType);
-    if (consumerRecord.key() != null) {
-      topicMessage.setKey(consumerRecord.key().toString());
-    }
+    topicMessage.setKey(key);
     topicMessage.setHeaders(headers);
     Object parsedValue = recordDeserializer.deserialize(consumerRecord);
     topicMessage.setContent(parsedValue);
@@ -1,26 +1,41 @@
 package com.provectus.kafka.ui.util;
 
-import com.provectus.kafka.ui.model.Metric;
+import com.provectus.kafka.ui.config.ClustersProperties;
+import com.provectus.kafka.ui.model.InternalMetric;
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.Hashtable;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.management.Attribute;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
 import javax.management.MBeanAttributeInfo;
 import javax.management.MBeanServerConnection;
+import javax.management.MalformedObjectNameException;
 import javax.management.ObjectName;
 import javax.management.remote.JMXConnector;
 import lombok.RequiredArgsConstructor;
-import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.pool2.KeyedObjectPool;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
 @Component
 @Slf4j
@@ -31,55 +46,173 @@ public class JmxClusterUtil {
   private static final String JMX_SERVICE_TYPE = "jmxrmi";
   private static final String KAFKA_SERVER_PARAM = "kafka.server";
   private static final String NAME_METRIC_FIELD = "name";
+  private static final Set<String> NUMERIC_TYPES = Set.of(
+      "byte", "short", "int", "long", "float", "double",
+      Byte.class.getName(), Short.class.getName(), Integer.class.getName(),
+      Long.class.getName(), Float.class.getName(), Double.class.getName(),
+      BigDecimal.class.getName(), BigInteger.class.getName(), Number.class.getName()
+  );
   private final KeyedObjectPool<String, JMXConnector> pool;
+  private final ClustersProperties clustersProperties;
+  private final Map<String, Map<ObjectName, MetricDescriptor>> descriptorsCache =
+      new ConcurrentHashMap<>();
+  private final Map<List<String>, String[]> valueNamesCache = new ConcurrentHashMap<>();
 
-  @SneakyThrows
-  public List<Metric> getJmxMetrics(int jmxPort, String jmxHost) {
-    String jmxUrl = JMX_URL + jmxHost + ":" + jmxPort + "/" + JMX_SERVICE_TYPE;
+  @Value("${kafka.jmx.threads:16}")
+  private int threads;
+  @Value("${kafka.jmx.timeout-ms:10000}")
+  private long timeoutMs;
+
+  private Scheduler scheduler;
+  private List<ObjectName> objectNamePatterns;
+
+  @PostConstruct
+  public void init() throws MalformedObjectNameException {
+    scheduler = Schedulers.newBoundedElastic(threads, Integer.MAX_VALUE, "jmx");
+    objectNamePatterns = new ArrayList<>();
+    for (String pattern : getObjectNamePatterns()) {
+      objectNamePatterns.add(new ObjectName(pattern));
+    }
+  }
+
+  @PreDestroy
+  public void close() {
+    scheduler.dispose();
+  }
+
+  /**
+   * Collects broker's metrics on the dedicated jmx scheduler, so slow brokers can be queried
+   * in parallel without blocking callers. Fails with TimeoutException if broker doesn't
+   * respond within configured timeout, connector used by timed out call is invalidated.
+   */
+  public Mono<List<InternalMetric>> getJmxMetrics(int jmxPort, String jmxHost) {
+    final String jmxUrl = JMX_URL + jmxHost + ":" + jmxPort + "/" + JMX_SERVICE_TYPE;
+    final AtomicReference<JMXConnector> borrowed = new AtomicReference<>();
+    return Mono.fromCallable(() -> collectJmxMetrics(jmxUrl, borrowed))
+        .subscribeOn(scheduler)
+        .doOnCancel(() -> {
+          final JMXConnector srv = borrowed.getAndSet(null);
+          if (srv != null) {
+            // closing connector of hung broker can block too, so jmx threads are not used
+            Schedulers.boundedElastic().schedule(() -> closeConnectionExceptionally(jmxUrl, srv));
+          }
+        })
+        .timeout(Duration.ofMillis(timeoutMs));
+  }
+
+  private List<String> getObjectNamePatterns() {
+    List<String> configured = clustersProperties.getJmx().getObjectNames();
+    if (configured != null && !configured.isEmpty()) {
+      return configured;
+    }
+    return Arrays.stream(JmxMetricsName.values())
+        .map(n -> KAFKA_SERVER_PARAM + ":" + NAME_METRIC_FIELD + "=" + n.name() + ",*")
+        .collect(Collectors.toList());
+  }
+
+  private List<InternalMetric> collectJmxMetrics(String jmxUrl,
+                                                 AtomicReference<JMXConnector> borrowed)
+      throws Exception {
     JMXConnector srv;
     try {
       srv = pool.borrowObject(jmxUrl);
     } catch (Exception e) {
       log.error("Cannot get JMX connector for the pool due to: ", e);
-      return Collections.emptyList();
+      throw e;
     }
+    borrowed.set(srv);
 
-    List<Metric> result = new ArrayList<>();
+    // connector is given back only if it was not invalidated by timeout meanwhile
     try {
-      MBeanServerConnection msc = srv.getMBeanServerConnection();
-      var jmxMetrics = msc.queryNames(null, null).stream()
-          .filter(q -> q.getCanonicalName().startsWith(KAFKA_SERVER_PARAM))
-          .collect(Collectors.toList());
-      for (ObjectName jmxMetric : jmxMetrics) {
-        final Hashtable<String, String> params = jmxMetric.getKeyPropertyList();
-        Metric metric = new Metric();
-        metric.setName(params.get(NAME_METRIC_FIELD));
-        metric.setCanonicalName(jmxMetric.getCanonicalName());
-        metric.setParams(params);
-        metric.setValue(getJmxMetric(jmxMetric.getCanonicalName(), msc));
-        result.add(metric);
+      List<InternalMetric> result = collectJmxMetrics(jmxUrl, srv.getMBeanServerConnection());
+      if (borrowed.compareAndSet(srv, null)) {
+        pool.returnObject(jmxUrl, srv);
       }
-      pool.returnObject(jmxUrl, srv);
+      return result;
     } catch (Exception e) {
       log.error("Cannot get jmxMetricsNames, {}", jmxUrl, e);
-      closeConnectionExceptionally(jmxUrl, srv);
+      if (borrowed.compareAndSet(srv, null)) {
+        closeConnectionExceptionally(jmxUrl, srv);
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Queries only MBeans matching configured patterns. Attribute names of every MBean are
+   * resolved once and cached, then all values are fetched with single getAttributes call.
+   */
+  List<InternalMetric> collectJmxMetrics(String jmxUrl, MBeanServerConnection msc)
+      throws IOException {
+    final Map<ObjectName, MetricDescriptor> descriptors =
+        descriptorsCache.computeIfAbsent(jmxUrl, k -> new ConcurrentHashMap<>());
+    final Set<ObjectName> jmxMetrics = new LinkedHashSet<>();
+    for (ObjectName pattern : objectNamePatterns) {
+      jmxMetrics.addAll(msc.queryNames(pattern, null));
+    }
+    // MBeans of deleted topics or partitions should not stay in cache forever
+    descriptors.keySet().retainAll(jmxMetrics);
+
+    List<InternalMetric> result = new ArrayList<>(jmxMetrics.size());
+    for (ObjectName jmxMetric : jmxMetrics) {
+      try {
+        MetricDescriptor descriptor = descriptors.get(jmxMetric);
+        if (descriptor == null) {
+          descriptor = describe(jmxMetric, msc);
+          descriptors.put(jmxMetric, descriptor);
+        }
+        result.add(new InternalMetric(
+            descriptor.name,
+            descriptor.canonicalName,
+            descriptor.params,
+            descriptor.valueNames,
+            getJmxMetric(jmxMetric, descriptor.valueNames, msc)
+        ));
+      } catch (InstanceNotFoundException e) {
+        // MBean was unregistered after query
+        descriptors.remove(jmxMetric);
+      } catch (JMException e) {
+        log.warn("Cannot get jmx metric {}, {}", jmxMetric, jmxUrl, e);
+      }
     }
     return result;
   }
 
+  private MetricDescriptor describe(ObjectName name, MBeanServerConnection msc)
+      throws IOException, JMException {
+    final List<String> valueNames = Arrays.stream(msc.getMBeanInfo(name).getAttributes())
+        .filter(MBeanAttributeInfo::isReadable)
+        .filter(a -> NUMERIC_TYPES.contains(a.getType()))
+        .map(MBeanAttributeInfo::getName)
+        .collect(Collectors.toList());
+    final Map<String, String> params = new HashMap<>();
+    name.getKeyPropertyList().forEach((k, v) -> params.put(k.intern(), v));
+    return new MetricDescriptor(
+        params.get(NAME_METRIC_FIELD) != null ? params.get(NAME_METRIC_FIELD).intern() : null,
+        name.getCanonicalName(),
+        Collections.unmodifiableMap(params),
+        valueNamesCache.computeIfAbsent(valueNames,
+            k -> k.stream().map(String::intern).toArray(String[]::new))
+    );
+  }
 
-  @SneakyThrows
-  private Map<String, BigDecimal> getJmxMetric(String canonicalName, MBeanServerConnection msc) {
-    Map<String, BigDecimal> resultAttr = new HashMap<>();
-    ObjectName name = new ObjectName(canonicalName);
-    var attrNames = msc.getMBeanInfo(name).getAttributes();
-    for (MBeanAttributeInfo attrName : attrNames) {
-      var value = msc.getAttribute(name, attrName.getName());
-      if (NumberUtil.isNumeric(value)) {
-        resultAttr.put(attrName.getName(), new BigDecimal(value.toString()));
+  private double[] getJmxMetric(ObjectName name, String[] valueNames, MBeanServerConnection msc)
+      throws IOException, JMException {
+    final double[] values = new double[valueNames.length];
+    Arrays.fill(values, Double.NaN);
+    final List<Attribute> attributes = msc.getAttributes(name, valueNames).asList();
+    for (int i = 0; i < attributes.size(); i++) {
+      final Attribute attribute = attributes.get(i);
+      // attributes come in requested order unless some of them could not be read
+      final int idx = i < valueNames.length && valueNames[i].equals(attribute.getName())
+          ? i
+          : Arrays.asList(valueNames).indexOf(attribute.getName());
+      final Object value = attribute.getValue();
+      if (idx >= 0 && value instanceof Number && NumberUtil.isNumeric(value)) {
+        values[idx] = ((Number) value).doubleValue();
       }
     }
-    return resultAttr;
+    return values;
   }
 
   private void closeConnectionExceptionally(String url, JMXConnector srv) {
@@ -90,28 +223,45 @@ public class JmxClusterUtil {
     }
   }
 
-  public Metric reduceJmxMetrics(Metric metric1, Metric metric2) {
-    var result = new Metric();
-    Map<String, BigDecimal> value = Stream.concat(
-        metric1.getValue().entrySet().stream(),
-        metric2.getValue().entrySet().stream()
-    ).collect(Collectors.groupingBy(
-        Map.Entry::getKey,
-        Collectors.reducing(BigDecimal.ZERO, Map.Entry::getValue, BigDecimal::add)
-    ));
-    result.setName(metric1.getName());
-    result.setCanonicalName(metric1.getCanonicalName());
-    result.setParams(metric1.getParams());
-    result.setValue(value);
-    return result;
+  /**
+   * Sums values of the same metric reported by different brokers. Absent (NaN) values are
+   * ignored, so the sum is absent only if value is absent for both metrics.
+   */
+  public InternalMetric reduceJmxMetrics(InternalMetric metric1, InternalMetric metric2) {
+    final String[] valueNames;
+    final double[] values;
+    if (Arrays.equals(metric1.getValueNames(), metric2.getValueNames())) {
+      valueNames = metric1.getValueNames();
+      values = new double[valueNames.length];
+      for (int i = 0; i < values.length; i++) {
+        values[i] = sum(metric1.getValues()[i], metric2.getValues()[i]);
+      }
+    } else {
+      final Map<String, Double> merged = new LinkedHashMap<>();
+      for (InternalMetric metric : List.of(metric1, metric2)) {
+        for (int i = 0; i < metric.getValueNames().length; i++) {
+          merged.merge(metric.getValueNames()[i], metric.getValues()[i], JmxClusterUtil::sum);
+        }
+      }
+      valueNames = merged.keySet().toArray(String[]::new);
+      values = merged.values().stream().mapToDouble(Double::doubleValue).toArray();
+    }
+    return new InternalMetric(metric1.getName(), metric1.getCanonicalName(),
+        metric1.getParams(), valueNames, values);
+  }
+
+  private static double sum(double value1, double value2) {
+    if (Double.isNaN(value1)) {
+      return value2;
+    }
+    return Double.isNaN(value2) ? value1 : value1 + value2;
   }
 
-  private boolean isWellKnownMetric(Metric metric) {
-    final Optional<String> param =
-        Optional.ofNullable(metric.getParams().get(NAME_METRIC_FIELD)).filter(p ->
-            Arrays.stream(JmxMetricsName.values()).map(Enum::name)
-                .anyMatch(n -> n.equals(p))
-        );
-    return metric.getCanonicalName().contains(KAFKA_SERVER_PARAM) && param.isPresent();
+  @RequiredArgsConstructor
+  private static class MetricDescriptor {
+    private final String name;
+    private final String canonicalName;
+    private final Map<String, String> params;
+    private final String[] valueNames;
   }
 }
@@ -1,9 +1,15 @@
 package com.provectus.kafka.ui.util;
 
 import java.io.IOException;
+import java.io.Serializable;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.rmi.server.RMIClientSocketFactory;
+import java.util.Map;
 import javax.management.remote.JMXConnector;
 import javax.management.remote.JMXConnectorFactory;
 import javax.management.remote.JMXServiceURL;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.pool2.BaseKeyedPooledObjectFactory;
 import org.apache.commons.pool2.PooledObject;
@@ -12,9 +18,22 @@ import org.apache.commons.pool2.impl.DefaultPooledObject;
 @Slf4j
 public class JmxPoolFactory extends BaseKeyedPooledObjectFactory<String, JMXConnector> {
 
+  // socket factory used by RMI registry lookup of the connector
+  private static final String RMI_SOCKET_FACTORY_ATTRIBUTE = "com.sun.jndi.rmi.factory.socket";
+
+  // bounds connecting and registry lookup only. Remote calls of created connectors are bounded
+  // by JmxClusterUtil, which times them out and invalidates their connectors. Process wide
+  // sun.rmi.transport.tcp.responseTimeout is left to JVM options, it is not set from here
+  private final int timeoutMs;
+
+  public JmxPoolFactory(int timeoutMs) {
+    this.timeoutMs = timeoutMs;
+  }
+
   @Override
   public JMXConnector create(String s) throws Exception {
-    return JMXConnectorFactory.connect(new JMXServiceURL(s));
+    return JMXConnectorFactory.connect(new JMXServiceURL(s),
+        Map.of(RMI_SOCKET_FACTORY_ATTRIBUTE, new TimeoutSocketFactory(timeoutMs)));
   }
 
   @Override
@@ -30,4 +49,22 @@ public class JmxPoolFactory extends BaseKeyedPooledObjectFactory<String, JMXConn
       log.error("Cannot close connection with {}", key);
     }
   }
+
+  @RequiredArgsConstructor
+  private static class TimeoutSocketFactory implements RMIClientSocketFactory, Serializable {
+    private final int timeoutMs;
+
+    @Override
+    public Socket createSocket(String host, int port) throws IOException {
+      final Socket socket = new Socket();
+      try {
+        socket.connect(new InetSocketAddress(host, port), timeoutMs);
+        socket.setSoTimeout(timeoutMs);
+      } catch (IOException e) {
+        socket.close();
+        throw e;
+      }
+      return socket;
+    }
+  }
 }
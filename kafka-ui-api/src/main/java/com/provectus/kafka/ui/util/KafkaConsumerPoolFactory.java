@@ -0,0 +1,61 @@
+package com.provectus.kafka.ui.util;
+
+import java.time.Duration;
+import java.util.function.Function;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.pool2.BaseKeyedPooledObjectFactory;
+import org.apache.commons.pool2.PooledObject;
+import org.apache.commons.pool2.impl.DefaultPooledObject;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.internals.Topic;
+import org.apache.kafka.common.utils.Bytes;
+
+@Slf4j
+@RequiredArgsConstructor
+public class KafkaConsumerPoolFactory<K>
+    extends BaseKeyedPooledObjectFactory<K, KafkaConsumer<Bytes, Bytes>> {
+
+  private final Function<K, KafkaConsumer<Bytes, Bytes>> consumerCreator;
+  private final Duration validationTimeout;
+
+  @Override
+  public KafkaConsumer<Bytes, Bytes> create(K key) {
+    return consumerCreator.apply(key);
+  }
+
+  @Override
+  public PooledObject<KafkaConsumer<Bytes, Bytes>> wrap(KafkaConsumer<Bytes, Bytes> consumer) {
+    return new DefaultPooledObject<>(consumer);
+  }
+
+  /**
+   * Used by the idle evictor: a consumer is considered healthy if it is still able to fetch
+   * metadata of a single small topic within the validation timeout.
+   */
+  @Override
+  public boolean validateObject(K key, PooledObject<KafkaConsumer<Bytes, Bytes>> p) {
+    try {
+      p.getObject().partitionsFor(Topic.GROUP_METADATA_TOPIC_NAME, validationTimeout);
+      return true;
+    } catch (Exception e) {
+      log.warn("Pooled consumer {} failed health check", key, e);
+      return false;
+    }
+  }
+
+  @Override
+  public void passivateObject(K key, PooledObject<KafkaConsumer<Bytes, Bytes>> p) {
+    // dropping assignment and any buffered fetches before consumer goes back to the pool
+    p.getObject().unsubscribe();
+  }
+
+  @Override
+  public void destroyObject(K key, PooledObject<KafkaConsumer<Bytes, Bytes>> p) {
+    try {
+      p.getObject().close();
+    } catch (Exception e) {
+      log.error("Cannot close pooled consumer {}", key);
+    }
+  }
+}
@@ -0,0 +1,218 @@
+package com.provectus.kafka.ui.util;
+
+import com.provectus.kafka.ui.exception.ValidationException;
+import com.provectus.kafka.ui.model.MessageFilterType;
+import com.provectus.kafka.ui.model.TopicMessage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import java.util.stream.Collectors;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+/**
+ * Search query compiled once per request. With {@link MessageFilterType#STRING_CONTAINS} type
+ * (the default) query is a text that any content value should contain, taken as is. With
+ * {@link MessageFilterType#DSL} type query is a list of conditions joined with {@code &&},
+ * every condition is one of:
+ * <ul>
+ *   <li>{@code partition:0,1} - record is from one of listed partitions</li>
+ *   <li>{@code timestamp>=ms}, {@code timestamp<=ms}, {@code timestamp>ms},
+ *   {@code timestamp<ms} - record timestamp is within bounds</li>
+ *   <li>{@code key:text} or {@code key:/regex/} - key contains text or matches regex</li>
+ *   <li>{@code header:name} or {@code header:name=value} - header is present, or has value</li>
+ *   <li>{@code $.path.to.field=value} - content field at path equals value</li>
+ *   <li>{@code /regex/} - any content value matches regex</li>
+ *   <li>anything else - any content value contains text</li>
+ * </ul>
+ * Partition and timestamp conditions are checked on raw records and key conditions on
+ * deserialized keys, so records they reject never get their values deserialized.
+ */
+public class MessageFilter {
+
+  private static final MessageFilter MATCH_ALL =
+      new MessageFilter(r -> true, k -> true, m -> true);
+
+  private static final String AND = "&&";
+  private static final String PARTITION = "partition:";
+  private static final String TIMESTAMP = "timestamp";
+  private static final String KEY = "key:";
+  private static final String HEADER = "header:";
+  private static final String PATH = "$.";
+
+  private final Predicate<ConsumerRecord<?, ?>> recordPredicate;
+  private final Predicate<String> keyPredicate;
+  private final Predicate<TopicMessage> messagePredicate;
+
+  private MessageFilter(Predicate<ConsumerRecord<?, ?>> recordPredicate,
+                        Predicate<String> keyPredicate,
+                        Predicate<TopicMessage> messagePredicate) {
+    this.recordPredicate = recordPredicate;
+    this.keyPredicate = keyPredicate;
+    this.messagePredicate = messagePredicate;
+  }
+
+  public static MessageFilter compile(String query, MessageFilterType type) {
+    if (StringUtils.isBlank(query)) {
+      return MATCH_ALL;
+    }
+    if (type != MessageFilterType.DSL) {
+      return new MessageFilter(r -> true, k -> true,
+          m -> anyValueMatches(m.getContent(), s -> s.contains(query)));
+    }
+    List<Predicate<ConsumerRecord<?, ?>>> recordPredicates = new ArrayList<>();
+    List<Predicate<String>> keyPredicates = new ArrayList<>();
+    List<Predicate<TopicMessage>> messagePredicates = new ArrayList<>();
+    for (String part : query.split(Pattern.quote(AND))) {
+      final String condition = part.trim();
+      if (condition.isEmpty()) {
+        continue;
+      }
+      if (condition.startsWith(PARTITION)) {
+        recordPredicates.add(partitionPredicate(condition.substring(PARTITION.length())));
+      } else if (condition.startsWith(TIMESTAMP) && condition.length() > TIMESTAMP.length()
+          && "<>".indexOf(condition.charAt(TIMESTAMP.length())) >= 0) {
+        recordPredicates.add(timestampPredicate(condition.substring(TIMESTAMP.length())));
+      } else if (condition.startsWith(KEY)) {
+        Predicate<String> text = textPredicate(condition.substring(KEY.length()));
+        keyPredicates.add(k -> k != null && text.test(k));
+      } else if (condition.startsWith(HEADER)) {
+        messagePredicates.add(headerPredicate(condition.substring(HEADER.length())));
+      } else if (condition.startsWith(PATH) && condition.indexOf('=') > 0) {
+        messagePredicates.add(pathPredicate(condition));
+      } else {
+        Predicate<String> text = textPredicate(condition);
+        messagePredicates.add(m -> anyValueMatches(m.getContent(), text));
+      }
+    }
+    return new MessageFilter(and(recordPredicates), and(keyPredicates), and(messagePredicates));
+  }
+
+  public boolean testRecord(ConsumerRecord<?, ?> record) {
+    return recordPredicate.test(record);
+  }
+
+  public boolean testKey(String key) {
+    return keyPredicate.test(key);
+  }
+
+  /**
+   * Checks header and content conditions, key conditions are checked by {@link #testKey}.
+   */
+  public boolean testMessage(TopicMessage message) {
+    return messagePredicate.test(message);
+  }
+
+  private static Predicate<ConsumerRecord<?, ?>> partitionPredicate(String value) {
+    try {
+      Set<Integer> partitions = Arrays.stream(value.split(","))
+          .map(String::trim)
+          .map(Integer::parseInt)
+          .collect(Collectors.toSet());
+      return r -> partitions.contains(r.partition());
+    } catch (NumberFormatException e) {
+      throw new ValidationException("Wrong partition condition: " + value);
+    }
+  }
+
+  private static Predicate<ConsumerRecord<?, ?>> timestampPredicate(String value) {
+    final boolean inclusive = value.length() > 1 && value.charAt(1) == '=';
+    final boolean lower = value.charAt(0) == '>';
+    final long bound;
+    try {
+      bound = Long.parseLong(value.substring(inclusive ? 2 : 1).trim());
+    } catch (NumberFormatException e) {
+      throw new ValidationException("Wrong timestamp condition: " + TIMESTAMP + value);
+    }
+    if (lower) {
+      return inclusive ? r -> r.timestamp() >= bound : r -> r.timestamp() > bound;
+    }
+    return inclusive ? r -> r.timestamp() <= bound : r -> r.timestamp() < bound;
+  }
+
+  private static Predicate<TopicMessage> headerPredicate(String value) {
+    final int idx = value.indexOf('=');
+    if (idx < 0) {
+      return m -> m.getHeaders() != null && m.getHeaders().containsKey(value);
+    }
+    final String name = value.substring(0, idx);
+    final String expected = value.substring(idx + 1);
+    return m -> m.getHeaders() != null && expected.equals(m.getHeaders().get(name));
+  }
+
+  private static Predicate<TopicMessage> pathPredicate(String condition) {
+    final int idx = condition.indexOf('=');
+    final String[] path = condition.substring(PATH.length(), idx).split("\\.");
+    final String expected = condition.substring(idx + 1);
+    return m -> {
+      Object node = m.getContent();
+      for (String field : path) {
+        if (!(node instanceof Map)) {
+          return false;
+        }
+        node = ((Map<?, ?>) node).get(field);
+      }
+      return node != null && !(node instanceof Map) && !(node instanceof Collection)
+          && expected.equals(String.valueOf(node));
+    };
+  }
+
+  private static Predicate<String> textPredicate(String value) {
+    if (value.length() > 1 && value.startsWith("/") && value.endsWith("/")) {
+      try {
+        Pattern pattern = Pattern.compile(value.substring(1, value.length() - 1));
+        return s -> pattern.matcher(s).find();
+      } catch (PatternSyntaxException e) {
+        throw new ValidationException("Wrong regex: " + e.getMessage());
+      }
+    }
+    return s -> s.contains(value);
+  }
+
+  /**
+   * Walks deserialized content (maps, lists and scalars) without converting it to
+   * other representation, stops on first matching value.
+   */
+  private static boolean anyValueMatches(Object node, Predicate<String> predicate) {
+    if (node instanceof Map) {
+      for (Object value : ((Map<?, ?>) node).values()) {
+        if (anyValueMatches(value, predicate)) {
+          return true;
+        }
+      }
+      return false;
+    }
+    if (node instanceof Collection) {
+      for (Object value : (Collection<?>) node) {
+        if (anyValueMatches(value, predicate)) {
+          return true;
+        }
+      }
+      return false;
+    }
+    return predicate.test(String.valueOf(node));
+  }
+
+  private static <T> Predicate<T> and(List<Predicate<T>> predicates) {
+    if (predicates.isEmpty()) {
+      return t -> true;
+    }
+    if (predicates.size() == 1) {
+      return predicates.get(0);
+    }
+    return t -> {
+      for (Predicate<T> predicate : predicates) {
+        if (!predicate.test(t)) {
+          return false;
+        }
+      }
+      return true;
+    };
+  }
+}
@@ -0,0 +1,99 @@
+package com.provectus.kafka.ui.util;
+
+/**
+ * Bounded time series of (timestamp, value) points backed by primitive ring buffers.
+ * Every point goes to the raw ring, and is also averaged into fixed-size buckets that are kept
+ * in a second, downsampled ring, so older data is still available at lower resolution
+ * after it was evicted from the raw ring.
+ */
+public class MetricTimeSeries {
+
+  private final Ring raw;
+  private final Ring downsampled;
+  private final long downsampleIntervalMs;
+
+  private long bucketStart = Long.MIN_VALUE;
+  private double bucketSum;
+  private int bucketCount;
+
+  public MetricTimeSeries(int rawCapacity, int downsampledCapacity, long downsampleIntervalMs) {
+    this.raw = new Ring(rawCapacity);
+    this.downsampled = new Ring(downsampledCapacity);
+    this.downsampleIntervalMs = downsampleIntervalMs;
+  }
+
+  public synchronized void add(long timestamp, double value) {
+    raw.add(timestamp, value);
+    final long bucket = timestamp - timestamp % downsampleIntervalMs;
+    if (bucket != bucketStart) {
+      if (bucketCount > 0) {
+        downsampled.add(bucketStart, bucketSum / bucketCount);
+      }
+      bucketStart = bucket;
+      bucketSum = 0;
+      bucketCount = 0;
+    }
+    bucketSum += value;
+    bucketCount++;
+  }
+
+  /**
+   * Passes points within [from, to] range to consumer in chronological order. Downsampled
+   * points are used only for the part of the range that is not covered by raw points, so
+   * a bucket that ends after the first raw point is skipped, as it averages raw points too.
+   */
+  public synchronized void forEach(long from, long to, PointConsumer consumer) {
+    final long rawStart = raw.size > 0 ? raw.timestampAt(0) : Long.MAX_VALUE;
+    for (int i = 0; i < downsampled.size; i++) {
+      long ts = downsampled.timestampAt(i);
+      if (ts >= from && ts <= to && ts + downsampleIntervalMs <= rawStart) {
+        consumer.accept(ts, downsampled.valueAt(i));
+      }
+    }
+    for (int i = 0; i < raw.size; i++) {
+      long ts = raw.timestampAt(i);
+      if (ts >= from && ts <= to) {
+        consumer.accept(ts, raw.valueAt(i));
+      }
+    }
+  }
+
+  @FunctionalInterface
+  public interface PointConsumer {
+    void accept(long timestamp, double value);
+  }
+
+  private static class Ring {
+    private final long[] timestamps;
+    private final double[] values;
+    private int head;
+    private int size;
+
+    Ring(int capacity) {
+      this.timestamps = new long[capacity];
+      this.values = new double[capacity];
+    }
+
+    void add(long timestamp, double value) {
+      if (timestamps.length == 0) {
+        return;
+      }
+      int idx = (head + size) % timestamps.length;
+      timestamps[idx] = timestamp;
+      values[idx] = value;
+      if (size < timestamps.length) {
+        size++;
+      } else {
+        head = (head + 1) % timestamps.length;
+      }
+    }
+
+    long timestampAt(int i) {
+      return timestamps[(head + i) % timestamps.length];
+    }
+
+    double valueAt(int i) {
+      return values[(head + i) % values.length];
+    }
+  }
+}
@@ -1,16 +1,21 @@
 package com.provectus.kafka.ui;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
 import com.provectus.kafka.ui.model.TopicCreation;
 import com.provectus.kafka.ui.model.TopicMessage;
 import com.provectus.kafka.ui.producer.KafkaTestProducer;
+import com.provectus.kafka.ui.service.ConsumingService;
 import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Stream;
 import lombok.extern.log4j.Log4j2;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.reactive.server.WebTestClient;
 
 @ContextConfiguration(initializers = {AbstractBaseTest.Initializer.class})
@@ -21,6 +26,9 @@ public class KafkaConsumerTests extends AbstractBaseTest {
   @Autowired
   private WebTestClient webTestClient;
 
+  @Autowired
+  private ConsumingService consumingService;
+
 
   @Test
   public void shouldDeleteRecords() {
@@ -75,4 +83,97 @@ public class KafkaConsumerTests extends AbstractBaseTest {
         .expectStatus()
         .isNotFound();
   }
+
+  @Test
+  public void shouldGetMessageByPartitionAndOffset() {
+    var topicName = createTopic();
+    try (KafkaTestProducer<String, String> producer = KafkaTestProducer.forKafka(kafka)) {
+      Stream.of("one", "two", "three")
+          .forEach(value -> producer.send(new ProducerRecord<>(topicName, 0, null, value)));
+    }
+
+    var message = webTestClient.get()
+        .uri("/api/clusters/{clusterName}/topics/{topicName}/messages/{partition}/{offset}",
+            LOCAL, topicName, 0, 1)
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectBody(TopicMessage.class)
+        .returnResult()
+        .getResponseBody();
+    assertThat(message.getOffset()).isEqualTo(1);
+    assertThat(message.getContent()).isEqualTo("two");
+
+    webTestClient.get()
+        .uri("/api/clusters/{clusterName}/topics/{topicName}/messages/{partition}/{offset}",
+            LOCAL, topicName, 0, 3)
+        .exchange()
+        .expectStatus()
+        .isNotFound();
+    webTestClient.get()
+        .uri("/api/clusters/{clusterName}/topics/{topicName}/messages/{partition}/{offset}",
+            LOCAL, topicName, 5, 0)
+        .exchange()
+        .expectStatus()
+        .isNotFound();
+  }
+
+  @Test
+  public void shouldTruncateLargeValuesAndStopAtMaxResponseSize() {
+    var topicName = createTopic();
+    var value = "x".repeat(1000);
+    try (KafkaTestProducer<String, String> producer = KafkaTestProducer.forKafka(kafka)) {
+      for (int i = 0; i < 10; i++) {
+        producer.send(new ProducerRecord<>(topicName, 0, null, value));
+      }
+    }
+
+    ReflectionTestUtils.setField(consumingService, "maxContentSize", 100);
+    ReflectionTestUtils.setField(consumingService, "maxResponseSize", 250L);
+    try {
+      // loading stops at the message which reaches response size: 100 + 100 + 100 >= 250
+      var messages = webTestClient.get()
+          .uri("/api/clusters/{clusterName}/topics/{topicName}/messages", LOCAL, topicName)
+          .exchange()
+          .expectStatus()
+          .isOk()
+          .expectBodyList(TopicMessage.class)
+          .hasSize(3)
+          .returnResult()
+          .getResponseBody();
+      assertThat(messages).allSatisfy(m -> {
+        assertThat(m.getTruncated()).isTrue();
+        assertThat(m.getContent()).isEqualTo(value.substring(0, 100));
+      });
+
+      // single message is returned in full
+      webTestClient.get()
+          .uri("/api/clusters/{clusterName}/topics/{topicName}/messages/{partition}/{offset}",
+              LOCAL, topicName, 0, 0)
+          .exchange()
+          .expectStatus()
+          .isOk()
+          .expectBody(TopicMessage.class)
+          .value(m -> assertThat(m.getContent()).isEqualTo(value));
+    } finally {
+      ReflectionTestUtils.setField(consumingService, "maxContentSize", 262144);
+      ReflectionTestUtils.setField(consumingService, "maxResponseSize", 16777216L);
+    }
+  }
+
+  private String createTopic() {
+    var topicName = UUID.randomUUID().toString();
+    webTestClient.post()
+        .uri("/api/clusters/{clusterName}/topics", LOCAL)
+        .bodyValue(new TopicCreation()
+            .name(topicName)
+            .partitions(2)
+            .replicationFactor(1)
+            .configs(Map.of())
+        )
+        .exchange()
+        .expectStatus()
+        .isOk();
+    return topicName;
+  }
 }
@@ -0,0 +1,64 @@
+package com.provectus.kafka.ui.deserialization;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.util.Utf8;
+import org.junit.jupiter.api.Test;
+
+class AvroRecordConverterTest {
+
+  private static final Schema SCHEMA = new Schema.Parser().parse(
+      "{\"type\": \"record\", \"name\": \"User\", \"namespace\": \"test\", \"fields\": ["
+          + "{\"name\": \"id\", \"type\": \"long\"},"
+          + "{\"name\": \"name\", \"type\": \"string\"},"
+          + "{\"name\": \"email\", \"type\": [\"null\", \"string\"]},"
+          + "{\"name\": \"tags\", \"type\": {\"type\": \"array\", \"items\": \"string\"}},"
+          + "{\"name\": \"attrs\", \"type\": {\"type\": \"map\", \"values\": \"int\"}},"
+          + "{\"name\": \"role\", \"type\": "
+          + "{\"type\": \"enum\", \"name\": \"Role\", \"symbols\": [\"ADMIN\", \"USER\"]}},"
+          + "{\"name\": \"avatar\", \"type\": \"bytes\"}"
+          + "]}");
+
+  private final AvroRecordConverter converter = new AvroRecordConverter();
+
+  @Test
+  void convertsRecordLikeAvroJsonEncoder() {
+    GenericRecord record = new GenericData.Record(SCHEMA);
+    record.put("id", 42L);
+    record.put("name", new Utf8("John"));
+    record.put("email", "john@example.com");
+    record.put("tags", List.of(new Utf8("vip")));
+    record.put("attrs", Map.of(new Utf8("age"), 30));
+    record.put("role", new GenericData.EnumSymbol(SCHEMA.getField("role").schema(), "ADMIN"));
+    record.put("avatar", ByteBuffer.wrap(new byte[] {65, 66}));
+
+    assertThat(converter.convert(record)).containsExactly(
+        Map.entry("id", 42L),
+        Map.entry("name", "John"),
+        Map.entry("email", Map.of("string", "john@example.com")),
+        Map.entry("tags", List.of("vip")),
+        Map.entry("attrs", Map.of("age", 30)),
+        Map.entry("role", "ADMIN"),
+        Map.entry("avatar", "AB")
+    );
+  }
+
+  @Test
+  void convertsNullUnionBranchToNull() {
+    GenericRecord record = new GenericData.Record(SCHEMA);
+    record.put("id", 1L);
+    record.put("name", "n");
+    record.put("tags", List.of());
+    record.put("attrs", Map.of());
+    record.put("role", new GenericData.EnumSymbol(SCHEMA.getField("role").schema(), "USER"));
+    record.put("avatar", ByteBuffer.allocate(0));
+
+    assertThat(converter.convert(record)).containsEntry("email", null);
+  }
+}
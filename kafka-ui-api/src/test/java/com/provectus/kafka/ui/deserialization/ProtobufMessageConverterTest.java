@@ -0,0 +1,72 @@
+package com.provectus.kafka.ui.deserialization;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.DescriptorProtos.DescriptorProto;
+import com.google.protobuf.DescriptorProtos.FieldDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FileDescriptorProto;
+import com.google.protobuf.Descriptors.Descriptor;
+import com.google.protobuf.Descriptors.FileDescriptor;
+import com.google.protobuf.DynamicMessage;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class ProtobufMessageConverterTest {
+
+  private final ProtobufMessageConverter converter =
+      new ProtobufMessageConverter(new ObjectMapper());
+
+  @Test
+  void convertsMessageLikeJsonPrinterWithDefaults() throws Exception {
+    Descriptor descriptor = FileDescriptor.buildFrom(
+        FileDescriptorProto.newBuilder()
+            .setName("test.proto")
+            .setSyntax("proto3")
+            .addMessageType(DescriptorProto.newBuilder()
+                .setName("Address")
+                .addField(field("city", 1, FieldDescriptorProto.Type.TYPE_STRING)))
+            .addMessageType(DescriptorProto.newBuilder()
+                .setName("User")
+                .addField(field("user_id", 1, FieldDescriptorProto.Type.TYPE_INT64))
+                .addField(field("name", 2, FieldDescriptorProto.Type.TYPE_STRING))
+                .addField(field("score", 3, FieldDescriptorProto.Type.TYPE_UINT32))
+                .addField(field("tags", 4, FieldDescriptorProto.Type.TYPE_STRING)
+                    .setLabel(FieldDescriptorProto.Label.LABEL_REPEATED))
+                .addField(field("address", 5, FieldDescriptorProto.Type.TYPE_MESSAGE)
+                    .setTypeName("Address"))
+                .addField(field("home", 6, FieldDescriptorProto.Type.TYPE_MESSAGE)
+                    .setTypeName("Address")))
+            .build(),
+        new FileDescriptor[0]
+    ).findMessageTypeByName("User");
+    Descriptor address = descriptor.getFile().findMessageTypeByName("Address");
+
+    DynamicMessage message = DynamicMessage.newBuilder(descriptor)
+        .setField(descriptor.findFieldByName("user_id"), 42L)
+        .setField(descriptor.findFieldByName("score"), -1)
+        .addRepeatedField(descriptor.findFieldByName("tags"), "vip")
+        .setField(descriptor.findFieldByName("address"), DynamicMessage.newBuilder(address)
+            .setField(address.findFieldByName("city"), "Berlin")
+            .build())
+        .build();
+
+    assertThat(converter.convert(message)).containsExactly(
+        Map.entry("userId", "42"),
+        Map.entry("name", ""),
+        Map.entry("score", 4294967295L),
+        Map.entry("tags", List.of("vip")),
+        Map.entry("address", Map.of("city", "Berlin"))
+    );
+  }
+
+  private static FieldDescriptorProto.Builder field(String name, int number,
+                                                    FieldDescriptorProto.Type type) {
+    return FieldDescriptorProto.newBuilder()
+        .setName(name)
+        .setNumber(number)
+        .setType(type)
+        .setLabel(FieldDescriptorProto.Label.LABEL_OPTIONAL);
+  }
+}
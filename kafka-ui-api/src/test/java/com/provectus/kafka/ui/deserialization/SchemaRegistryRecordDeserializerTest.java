@@ -1,9 +1,21 @@
 package com.provectus.kafka.ui.deserialization;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.provectus.kafka.ui.model.KafkaCluster;
+import io.confluent.kafka.schemaregistry.avro.AvroSchema;
+import io.confluent.kafka.schemaregistry.client.MockSchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.client.SchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.client.rest.exceptions.RestClientException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.common.utils.Bytes;
@@ -34,4 +46,80 @@ class SchemaRegistryRecordDeserializerTest {
         .deserialize(new ConsumerRecord<>("topic", 1, 0, Bytes.wrap("key".getBytes()), null));
     assertEquals(Map.of(), deserializedRecord);
   }
-}
\ No newline at end of file
+
+  @Test
+  public void shouldDetectFormatForEveryRecord() {
+    var json = deserializer.deserialize(
+        new ConsumerRecord<>("topic", 1, 0, null, Bytes.wrap("{\"id\": 1}".getBytes())));
+    assertEquals(Map.of("id", 1), json);
+    var string = deserializer.deserialize(
+        new ConsumerRecord<>("topic", 1, 1, null, Bytes.wrap("{not json".getBytes())));
+    assertEquals("{not json", string);
+  }
+
+  @Test
+  public void shouldDeserializeKey() {
+    var record = new ConsumerRecord<>("topic", 1, 0,
+        Bytes.wrap("{\"id\":1}".getBytes()), Bytes.wrap("value".getBytes()));
+    assertEquals("{\"id\":1}", deserializer.deserializeKey(record));
+    assertEquals(null, deserializer.deserializeKey(
+        new ConsumerRecord<>("topic", 1, 0, null, Bytes.wrap("value".getBytes()))));
+  }
+
+  @Test
+  public void shouldPreviewValueOnCharacterBoundary() {
+    // two bytes per character in UTF-8
+    var record = new ConsumerRecord<>("topic", 1, 0, null,
+        Bytes.wrap("ääääää".getBytes(StandardCharsets.UTF_8)));
+    assertEquals("äää", deserializer.previewValue(record, 6));
+    assertEquals("ää", deserializer.previewValue(record, 5));
+    assertEquals("ääääää", deserializer.previewValue(record, 12));
+  }
+
+  @Test
+  public void shouldNotPreviewSchemaRegistryAvroValue() throws Exception {
+    var schemaRegistryClient = new MockSchemaRegistryClient();
+    int schemaId = schemaRegistryClient.register("topic-value", new AvroSchema("\"string\""));
+    var avroDeserializer =
+        new SchemaRegistryRecordDeserializer(schemaRegistryClient, new ObjectMapper());
+
+    assertNull(avroDeserializer.previewValue(schemaRecord(schemaId), 4));
+  }
+
+  @Test
+  public void shouldNotCacheFormatOnRegistryFailure() throws Exception {
+    var schemaRegistryClient = mock(SchemaRegistryClient.class);
+    when(schemaRegistryClient.getSchemaById(1))
+        .thenThrow(new IOException("timeout"))
+        .thenReturn(new AvroSchema("\"string\""));
+    var avroDeserializer =
+        new SchemaRegistryRecordDeserializer(schemaRegistryClient, new ObjectMapper());
+
+    assertEquals("\0\0\0\0\1abc", avroDeserializer.previewValue(schemaRecord(1), 8));
+    assertNull(avroDeserializer.previewValue(schemaRecord(1), 8));
+    assertNull(avroDeserializer.previewValue(schemaRecord(1), 8));
+    verify(schemaRegistryClient, times(2)).getSchemaById(1);
+  }
+
+  @Test
+  public void shouldCacheUnknownSchemaId() throws Exception {
+    var schemaRegistryClient = mock(SchemaRegistryClient.class);
+    when(schemaRegistryClient.getSchemaById(1))
+        .thenThrow(new RestClientException("Schema not found", 404, 40403));
+    var avroDeserializer =
+        new SchemaRegistryRecordDeserializer(schemaRegistryClient, new ObjectMapper());
+
+    avroDeserializer.previewValue(schemaRecord(1), 8);
+    avroDeserializer.previewValue(schemaRecord(1), 8);
+    verify(schemaRegistryClient, times(1)).getSchemaById(1);
+  }
+
+  private static ConsumerRecord<Bytes, Bytes> schemaRecord(int schemaId) {
+    var value = ByteBuffer.allocate(1 + Integer.BYTES + 3)
+        .put((byte) 0)
+        .putInt(schemaId)
+        .put("abc".getBytes())
+        .array();
+    return new ConsumerRecord<>("topic", 1, 0, null, Bytes.wrap(value));
+  }
+}
@@ -6,7 +6,9 @@ import static org.mockito.Mockito.when;
 import com.provectus.kafka.ui.mapper.ClusterMapper;
 import com.provectus.kafka.ui.model.InternalTopic;
 import com.provectus.kafka.ui.model.KafkaCluster;
+import com.provectus.kafka.ui.model.SortOrder;
 import com.provectus.kafka.ui.model.Topic;
+import com.provectus.kafka.ui.model.TopicColumnsToSort;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
@@ -96,4 +98,61 @@ class ClusterServiceTest {
     assertThat(topics.getTopics()).hasSize(20);
     assertThat(topics.getTopics()).map(Topic::getName).isSorted();
   }
+
+  @Test
+  public void shouldSearchFilterAndSortTopics() {
+    var clusterName = UUID.randomUUID().toString();
+
+    when(clustersStorage.getClusterByName(clusterName))
+        .thenReturn(Optional.of(KafkaCluster.builder()
+            .topics(
+                IntStream.rangeClosed(1, 100).boxed()
+                    .map(Objects::toString)
+                    .collect(Collectors.toMap(Function.identity(), e -> InternalTopic.builder()
+                        .partitions(Map.of())
+                        .name(e)
+                        .internal(e.startsWith("1"))
+                        .partitionCount(100 - Integer.parseInt(e))
+                        .build()))
+            )
+            .build()));
+
+    var topics = clusterService.getTopics(clusterName, Optional.empty(), Optional.empty(),
+        Optional.of("5"), Optional.of(false), Optional.of(TopicColumnsToSort.TOTAL_PARTITIONS),
+        Optional.of(SortOrder.DESC));
+    assertThat(topics.getPageCount()).isEqualTo(1);
+    assertThat(topics.getTopics()).map(Topic::getName)
+        .containsExactly("5", "25", "35", "45", "50", "51", "52", "53", "54", "55", "56", "57",
+            "58", "59", "65", "75", "85", "95");
+  }
+
+  @Test
+  public void shouldSortTopicsByOutOfSyncReplicas() {
+    var clusterName = UUID.randomUUID().toString();
+
+    when(clustersStorage.getClusterByName(clusterName))
+        .thenReturn(Optional.of(KafkaCluster.builder()
+            .topics(Map.of(
+                "inSync", outOfSyncTopic("inSync", 6, 6, 0),
+                "threeOutOfSync", outOfSyncTopic("threeOutOfSync", 6, 3, 1),
+                "oneOutOfSync", outOfSyncTopic("oneOutOfSync", 6, 5, 2)))
+            .build()));
+
+    var topics = clusterService.getTopics(clusterName, Optional.empty(), Optional.empty(),
+        Optional.empty(), Optional.empty(), Optional.of(TopicColumnsToSort.OUT_OF_SYNC_REPLICAS),
+        Optional.of(SortOrder.DESC));
+    assertThat(topics.getTopics()).map(Topic::getName)
+        .containsExactly("threeOutOfSync", "oneOutOfSync", "inSync");
+  }
+
+  private InternalTopic outOfSyncTopic(String name, int replicas, int inSyncReplicas,
+                                       int underReplicatedPartitions) {
+    return InternalTopic.builder()
+        .partitions(Map.of())
+        .name(name)
+        .replicas(replicas)
+        .inSyncReplicas(inSyncReplicas)
+        .underReplicatedPartitions(underReplicatedPartitions)
+        .build();
+  }
 }
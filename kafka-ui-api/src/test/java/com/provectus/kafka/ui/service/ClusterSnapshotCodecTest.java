@@ -0,0 +1,99 @@
+package com.provectus.kafka.ui.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.provectus.kafka.ui.model.InternalBrokerDiskUsage;
+import com.provectus.kafka.ui.model.InternalBrokerMetrics;
+import com.provectus.kafka.ui.model.InternalClusterMetrics;
+import com.provectus.kafka.ui.model.InternalMetric;
+import com.provectus.kafka.ui.model.InternalPartition;
+import com.provectus.kafka.ui.model.InternalReplica;
+import com.provectus.kafka.ui.model.InternalTopic;
+import com.provectus.kafka.ui.model.InternalTopicConfig;
+import com.provectus.kafka.ui.model.KafkaCluster;
+import com.provectus.kafka.ui.model.ServerStatus;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class ClusterSnapshotCodecTest {
+
+  @Test
+  void shouldRestoreClusterState() throws IOException {
+    var valueNames = new String[] {"Count", "OneMinuteRate"};
+    var metric = new InternalMetric("BytesInPerSec", "kafka.server:name=BytesInPerSec",
+        Map.of("name", "BytesInPerSec"), valueNames, new double[] {10, Double.NaN});
+    var topic = InternalTopic.builder()
+        .name("topic")
+        .partitions(Map.of(0, InternalPartition.builder()
+            .partition(0)
+            .leader(1)
+            .replicas(List.of(new InternalReplica(1, true, true)))
+            .inSyncReplicasCount(1)
+            .replicasCount(1)
+            .offsetMax(100)
+            .build()))
+        .partitionCount(1)
+        .replicationFactor(1)
+        .segmentSize(1024)
+        .build();
+    var cluster = KafkaCluster.builder()
+        .name("local")
+        .bootstrapServers("localhost:9092")
+        .status(ServerStatus.ONLINE)
+        .metrics(InternalClusterMetrics.builder()
+            .brokerCount(1)
+            .topicCount(1)
+            .bytesInPerSec(Map.of("topic", 1.5))
+            .internalBrokerDiskUsage(Map.of(1, InternalBrokerDiskUsage.builder()
+                .segmentSize(1024)
+                .build()))
+            .internalBrokerMetrics(Map.of(1, InternalBrokerMetrics.builder()
+                .metrics(List.of(metric, metric))
+                .build()))
+            .metrics(List.of(metric))
+            .build())
+        .topics(Map.of("topic", topic))
+        .build();
+
+    var configs = List.of(
+        InternalTopicConfig.builder().name("retention.ms").value("1000").build(),
+        InternalTopicConfig.builder().name("cleanup.policy").defaultValue("delete").build());
+
+    var snapshot = roundTrip(cluster, Map.of("topic", configs));
+    var restored = snapshot.getCluster();
+
+    assertEquals("local", restored.getName());
+    assertEquals("localhost:9092", restored.getBootstrapServers());
+    assertEquals(ServerStatus.ONLINE, restored.getStatus());
+    assertNull(restored.getZookeeperStatus());
+    assertEquals(cluster.getMetrics(), restored.getMetrics());
+    assertEquals(cluster.getTopics(), restored.getTopics());
+    var brokerMetrics = restored.getMetrics().getInternalBrokerMetrics().get(1).getMetrics();
+    assertSame(brokerMetrics.get(0).getValueNames(), brokerMetrics.get(1).getValueNames());
+    assertEquals(Map.of("topic", configs), snapshot.getTopicConfigs());
+  }
+
+  @Test
+  void shouldRejectUnknownData() {
+    assertThrows(IOException.class, () -> new ClusterSnapshotCodec().read(
+        new DataInputStream(new ByteArrayInputStream(new byte[] {1, 2, 3, 4, 5, 6, 7, 8}))));
+  }
+
+  private ClusterSnapshotCodec.Snapshot roundTrip(
+      KafkaCluster cluster, Map<String, List<InternalTopicConfig>> topicConfigs)
+      throws IOException {
+    var bytes = new ByteArrayOutputStream();
+    new ClusterSnapshotCodec().write(new DataOutputStream(bytes), cluster, topicConfigs);
+    return new ClusterSnapshotCodec().read(
+        new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+  }
+}
@@ -0,0 +1,187 @@
+package com.provectus.kafka.ui.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.provectus.kafka.ui.deserialization.DeserializationService;
+import com.provectus.kafka.ui.deserialization.SimpleRecordDeserializer;
+import com.provectus.kafka.ui.exception.MessageNotFoundException;
+import com.provectus.kafka.ui.model.ConsumerPosition;
+import com.provectus.kafka.ui.model.KafkaCluster;
+import com.provectus.kafka.ui.model.SeekType;
+import com.provectus.kafka.ui.model.TopicMessage;
+import com.provectus.kafka.ui.service.KafkaConsumerPool.FetchProfile;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.utils.Bytes;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.test.StepVerifier;
+
+class ConsumingServiceTest {
+
+  private static final String TOPIC = "topic";
+
+  private final KafkaCluster cluster = KafkaCluster.builder().name("local").build();
+  private final KafkaConsumerPool consumerPool = mock(KafkaConsumerPool.class);
+  private final DeserializationService deserializationService =
+      mock(DeserializationService.class);
+  private final ConsumingService consumingService =
+      new ConsumingService(consumerPool, deserializationService);
+
+  @BeforeEach
+  void setUp() {
+    when(deserializationService.getRecordDeserializerForCluster(cluster))
+        .thenReturn(new SimpleRecordDeserializer());
+    ReflectionTestUtils.setField(consumingService, "deserializationThreads", 2);
+    consumingService.init();
+  }
+
+  @AfterEach
+  void tearDown() {
+    consumingService.close();
+  }
+
+  @Test
+  void tailSubscribersShareOneConsumerClosedAfterLastSubscriberLeaves() {
+    KafkaConsumer<Bytes, Bytes> consumer = tailConsumer();
+    when(consumerPool.createConsumer(cluster)).thenReturn(consumer);
+
+    var first = consumingService.tailMessages(cluster, TOPIC, null, null).subscribe();
+    var second = consumingService.tailMessages(cluster, TOPIC, null, null).subscribe();
+    verify(consumer, timeout(5000).atLeastOnce()).poll(any(Duration.class));
+
+    first.dispose();
+    verify(consumer, after(500).never()).close();
+    second.dispose();
+    verify(consumer, timeout(5000)).close();
+    verify(consumerPool, times(1)).createConsumer(cluster);
+  }
+
+  @Test
+  void tailIsRecreatedAfterLastSubscriberLeaves() {
+    KafkaConsumer<Bytes, Bytes> firstConsumer = tailConsumer();
+    KafkaConsumer<Bytes, Bytes> secondConsumer = tailConsumer();
+    when(consumerPool.createConsumer(cluster)).thenReturn(firstConsumer, secondConsumer);
+
+    consumingService.tailMessages(cluster, TOPIC, null, null).subscribe().dispose();
+    verify(firstConsumer, timeout(5000)).close();
+    var first = consumingService.tailMessages(cluster, TOPIC, null, null).subscribe();
+    var second = consumingService.tailMessages(cluster, TOPIC, null, null).subscribe();
+    verify(secondConsumer, timeout(5000).atLeastOnce()).poll(any(Duration.class));
+
+    verify(consumerPool, times(2)).createConsumer(cluster);
+    first.dispose();
+    second.dispose();
+    verify(secondConsumer, timeout(5000)).close();
+  }
+
+  @Test
+  void choosesFetchProfileByRequest() {
+    var position = new ConsumerPosition(SeekType.BEGINNING, Map.of());
+    when(consumerPool.borrow(any(), any())).thenThrow(new IllegalStateException("no consumer"));
+    when(consumerPool.createConsumer(any(), any()))
+        .thenThrow(new IllegalStateException("no consumer"));
+
+    // page of messages without search is read with small fetches
+    StepVerifier.create(consumingService.loadMessages(cluster, TOPIC, position, null, null, 100,
+        null)).verifyError();
+    verify(consumerPool).borrow(cluster, FetchProfile.INTERACTIVE);
+
+    // searches and streams scan many records
+    StepVerifier.create(consumingService.loadMessages(cluster, TOPIC, position, "value", null,
+        100, null)).verifyError();
+    verify(consumerPool).borrow(cluster, FetchProfile.BULK);
+    StepVerifier.create(consumingService.streamMessages(cluster, TOPIC, position, null, null,
+        null, null)).verifyError();
+    verify(consumerPool).createConsumer(cluster, FetchProfile.BULK);
+  }
+
+  @Test
+  void getsMessageAtOffset() {
+    KafkaConsumer<Bytes, Bytes> consumer = pooledConsumer(0, 10);
+    when(consumer.poll(any(Duration.class))).thenReturn(records(5, 6));
+
+    TopicMessage message = consumingService.getMessage(cluster, TOPIC, 0, 5).block();
+
+    assertThat(message.getOffset()).isEqualTo(5);
+    assertThat(message.getContent()).isEqualTo("value5");
+    verify(consumer).seek(new TopicPartition(TOPIC, 0), 5);
+  }
+
+  @Test
+  void messageNotFoundInMissingPartitionOrOutsideOfOffsetsRange() {
+    pooledConsumer(2, 10);
+
+    assertThatThrownBy(() -> consumingService.getMessage(cluster, TOPIC, 1, 5).block())
+        .isInstanceOf(MessageNotFoundException.class);
+    assertThatThrownBy(() -> consumingService.getMessage(cluster, TOPIC, 0, 1).block())
+        .isInstanceOf(MessageNotFoundException.class);
+    assertThatThrownBy(() -> consumingService.getMessage(cluster, TOPIC, 0, 10).block())
+        .isInstanceOf(MessageNotFoundException.class);
+  }
+
+  @Test
+  void messageNotFoundAtCompactedOffset() {
+    KafkaConsumer<Bytes, Bytes> consumer = pooledConsumer(0, 10);
+    // offset 5 was removed by compaction, poll starts from the next record
+    when(consumer.poll(any(Duration.class))).thenReturn(records(6, 7));
+
+    assertThatThrownBy(() -> consumingService.getMessage(cluster, TOPIC, 0, 5).block())
+        .isInstanceOf(MessageNotFoundException.class);
+  }
+
+  @SuppressWarnings("unchecked")
+  private KafkaConsumer<Bytes, Bytes> pooledConsumer(long beginningOffset, long endOffset) {
+    KafkaConsumer<Bytes, Bytes> consumer = mock(KafkaConsumer.class);
+    TopicPartition partition = new TopicPartition(TOPIC, 0);
+    when(consumer.partitionsFor(TOPIC))
+        .thenReturn(List.of(new PartitionInfo(TOPIC, 0, null, null, null)));
+    when(consumer.beginningOffsets(List.of(partition)))
+        .thenReturn(Map.of(partition, beginningOffset));
+    when(consumer.endOffsets(List.of(partition))).thenReturn(Map.of(partition, endOffset));
+    when(consumerPool.withConsumer(any(), any())).thenAnswer(inv ->
+        inv.<Function<KafkaConsumer<Bytes, Bytes>, ?>>getArgument(1).apply(consumer));
+    return consumer;
+  }
+
+  private static ConsumerRecords<Bytes, Bytes> records(long... offsets) {
+    List<ConsumerRecord<Bytes, Bytes>> records = new ArrayList<>();
+    for (long offset : offsets) {
+      records.add(new ConsumerRecord<>(TOPIC, 0, offset, null,
+          Bytes.wrap(("value" + offset).getBytes())));
+    }
+    return new ConsumerRecords<>(Map.of(new TopicPartition(TOPIC, 0), records));
+  }
+
+  @SuppressWarnings("unchecked")
+  private KafkaConsumer<Bytes, Bytes> tailConsumer() {
+    KafkaConsumer<Bytes, Bytes> consumer = mock(KafkaConsumer.class);
+    when(consumer.assignment()).thenReturn(Set.of());
+    when(consumer.partitionsFor(TOPIC))
+        .thenReturn(List.of(new PartitionInfo(TOPIC, 0, null, null, null)));
+    when(consumer.poll(any(Duration.class))).thenAnswer(inv -> {
+      Thread.sleep(10);
+      return ConsumerRecords.empty();
+    });
+    return consumer;
+  }
+}
@@ -0,0 +1,105 @@
+package com.provectus.kafka.ui.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.provectus.kafka.ui.model.InternalTopic;
+import com.provectus.kafka.ui.util.ClusterUtil;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class KafkaServiceTest {
+
+  private static final Node BROKER1 = new Node(1, "broker1", 9092);
+  private static final Node BROKER2 = new Node(2, "broker2", 9092);
+
+  @Test
+  void mergeTopicsReusesUnchangedAndNotDescribedTopics() {
+    InternalTopic unchanged = ClusterUtil.mapToInternalTopic(description("unchanged", BROKER1));
+    InternalTopic moved = ClusterUtil.mapToInternalTopic(description("moved", BROKER1));
+    InternalTopic notDescribed = ClusterUtil.mapToInternalTopic(description("other", BROKER1));
+    InternalTopic removed = ClusterUtil.mapToInternalTopic(description("removed", BROKER1));
+    Map<String, InternalTopic> current = Map.of(
+        "unchanged", unchanged, "moved", moved, "other", notDescribed, "removed", removed);
+
+    List<InternalTopic> merged = KafkaService.mergeTopics(
+        current,
+        Set.of("unchanged", "moved", "other", "added"),
+        Map.of(
+            "unchanged", description("unchanged", BROKER1),
+            "moved", description("moved", BROKER2),
+            "added", description("added", BROKER1)));
+
+    Map<String, InternalTopic> byName = merged.stream()
+        .collect(Collectors.toMap(InternalTopic::getName, Function.identity()));
+    assertThat(byName).containsOnlyKeys("unchanged", "moved", "other", "added");
+    assertThat(byName.get("unchanged")).isSameAs(unchanged);
+    assertThat(byName.get("other")).isSameAs(notDescribed);
+    assertThat(byName.get("moved")).isNotSameAs(moved);
+    assertThat(byName.get("moved").getPartitions().get(0).getLeader()).isEqualTo(2);
+  }
+
+  @Test
+  void describesAllTopicsByDefault() {
+    KafkaService kafkaService = new KafkaService(null, null, null, null);
+    Map<String, InternalTopic> current = IntStream.range(0, 10).mapToObj(i -> "topic" + i)
+        .collect(Collectors.toMap(Function.identity(),
+            n -> ClusterUtil.mapToInternalTopic(description(n, BROKER1))));
+
+    assertThat(kafkaService.topicsToDescribe("local", current.keySet(), current))
+        .isEqualTo(current.keySet());
+  }
+
+  @Test
+  void describesNewTopicsAndRotatesBatchesOfKnownTopics() {
+    KafkaService kafkaService = new KafkaService(null, null, null, null);
+    ReflectionTestUtils.setField(kafkaService, "topicsRefreshBatchSize", 4);
+    Map<String, InternalTopic> current = IntStream.range(0, 10).mapToObj(i -> "topic" + i)
+        .collect(Collectors.toMap(Function.identity(),
+            n -> ClusterUtil.mapToInternalTopic(description(n, BROKER1))));
+    Set<String> names = new HashSet<>(current.keySet());
+    names.add("added");
+
+    Set<String> described = new HashSet<>();
+    for (int i = 0; i < 3; i++) {
+      Set<String> batch = kafkaService.topicsToDescribe("local", names, current);
+      assertThat(batch).contains("added").hasSize(5);
+      described.addAll(batch);
+    }
+
+    assertThat(described).isEqualTo(names);
+  }
+
+  @Test
+  void describesUnderReplicatedTopicsOnEveryRefresh() {
+    KafkaService kafkaService = new KafkaService(null, null, null, null);
+    ReflectionTestUtils.setField(kafkaService, "topicsRefreshBatchSize", 1);
+    InternalTopic underReplicated = ClusterUtil.mapToInternalTopic(new TopicDescription(
+        "underReplicated", false, List.of(new TopicPartitionInfo(
+            0, BROKER1, List.of(BROKER1, BROKER2), List.of(BROKER1)))));
+    Map<String, InternalTopic> current = Map.of(
+        "underReplicated", underReplicated,
+        "topic1", ClusterUtil.mapToInternalTopic(description("topic1", BROKER1)),
+        "topic2", ClusterUtil.mapToInternalTopic(description("topic2", BROKER1)));
+
+    for (int i = 0; i < 3; i++) {
+      assertThat(kafkaService.topicsToDescribe("local", current.keySet(), current))
+          .contains("underReplicated")
+          .hasSize(2);
+    }
+  }
+
+  private static TopicDescription description(String name, Node leader) {
+    return new TopicDescription(name, false, List.of(new TopicPartitionInfo(
+        0, leader, List.of(BROKER1, BROKER2), List.of(BROKER1, BROKER2))));
+  }
+}
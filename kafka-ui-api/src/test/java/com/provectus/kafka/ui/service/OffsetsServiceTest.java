@@ -0,0 +1,143 @@
+package com.provectus.kafka.ui.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.provectus.kafka.ui.model.InternalTopic;
+import com.provectus.kafka.ui.model.KafkaCluster;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.utils.Bytes;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+
+class OffsetsServiceTest {
+
+  private static final TopicPartition TP0 = new TopicPartition("topic", 0);
+  private static final TopicPartition TP1 = new TopicPartition("topic", 1);
+
+  private final KafkaCluster cluster = KafkaCluster.builder().name("local").build();
+  private final KafkaConsumerPool consumerPool = mock(KafkaConsumerPool.class);
+  @SuppressWarnings("unchecked")
+  private final KafkaConsumer<Bytes, Bytes> consumer = mock(KafkaConsumer.class);
+  private final OffsetsService offsetsService = new OffsetsService(consumerPool);
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  void setUp() {
+    ReflectionTestUtils.setField(offsetsService, "cacheTtlMs", 60_000L);
+    when(consumerPool.withConsumer(any(), any())).thenAnswer(inv ->
+        ((Function<KafkaConsumer<Bytes, Bytes>, ?>) inv.getArgument(1)).apply(consumer));
+  }
+
+  @Test
+  void returnsCachedOffsetsWithoutQueryingBrokers() {
+    when(consumer.endOffsets(anyCollection())).thenReturn(Map.of(TP0, 10L, TP1, 20L));
+
+    var first = offsetsService.getLatestOffsets(cluster, List.of(TP0, TP1)).block();
+    var second = offsetsService.getLatestOffsets(cluster, List.of(TP1, TP0)).block();
+
+    assertThat(first).containsEntry(TP0, 10L).containsEntry(TP1, 20L);
+    assertThat(second).isEqualTo(first);
+    verify(consumer, times(1)).endOffsets(anyCollection());
+  }
+
+  @Test
+  void concurrentRequestsShareInFlightLookup() throws Exception {
+    var lookupStarted = new CountDownLatch(1);
+    var releaseLookup = new CountDownLatch(1);
+    when(consumer.beginningOffsets(anyCollection())).thenAnswer(inv -> {
+      lookupStarted.countDown();
+      releaseLookup.await(5, TimeUnit.SECONDS);
+      return Map.of(TP0, 1L);
+    });
+
+    var first = offsetsService.getEarliestOffsets(cluster, List.of(TP0)).toFuture();
+    assertThat(lookupStarted.await(5, TimeUnit.SECONDS)).isTrue();
+    var second = offsetsService.getEarliestOffsets(cluster, List.of(TP0)).toFuture();
+    releaseLookup.countDown();
+
+    assertThat(first.get(5, TimeUnit.SECONDS)).containsEntry(TP0, 1L);
+    assertThat(second.get(5, TimeUnit.SECONDS)).containsEntry(TP0, 1L);
+    verify(consumer, times(1)).beginningOffsets(anyCollection());
+  }
+
+  @Test
+  void invalidationForcesNewLookup() {
+    when(consumer.endOffsets(anyCollection()))
+        .thenReturn(Map.of(TP0, 10L))
+        .thenReturn(Map.of(TP0, 15L));
+
+    Mono<Map<TopicPartition, Long>> lookup = offsetsService.getLatestOffsets(cluster, List.of(TP0));
+    assertThat(lookup.block()).containsEntry(TP0, 10L);
+    offsetsService.invalidate(cluster, "topic");
+    assertThat(lookup.block()).containsEntry(TP0, 15L);
+  }
+
+  @Test
+  void missingPartitionsAreNotCached() {
+    when(consumer.endOffsets(anyCollection()))
+        .thenReturn(Map.of(TP0, 10L))
+        .thenReturn(Map.of(TP0, 10L, TP1, 20L));
+
+    assertThat(offsetsService.getLatestOffsets(cluster, List.of(TP0, TP1)).block())
+        .containsOnlyKeys(TP0);
+    assertThat(offsetsService.getLatestOffsets(cluster, List.of(TP0, TP1)).block())
+        .containsEntry(TP0, 10L)
+        .containsEntry(TP1, 20L);
+    verify(consumer, times(2)).endOffsets(anyCollection());
+  }
+
+  @Test
+  void lookupStartedBeforeInvalidationIsNotCached() throws Exception {
+    var lookupStarted = new CountDownLatch(1);
+    var releaseLookup = new CountDownLatch(1);
+    when(consumer.endOffsets(anyCollection()))
+        .thenAnswer(inv -> {
+          lookupStarted.countDown();
+          releaseLookup.await(5, TimeUnit.SECONDS);
+          return Map.of(TP0, 10L);
+        })
+        .thenReturn(Map.of(TP0, 15L));
+
+    var stale = offsetsService.getLatestOffsets(cluster, List.of(TP0)).toFuture();
+    assertThat(lookupStarted.await(5, TimeUnit.SECONDS)).isTrue();
+    offsetsService.invalidate(cluster, "topic");
+    releaseLookup.countDown();
+
+    assertThat(stale.get(5, TimeUnit.SECONDS)).containsEntry(TP0, 10L);
+    assertThat(offsetsService.getLatestOffsets(cluster, List.of(TP0)).block())
+        .containsEntry(TP0, 15L);
+    verify(consumer, times(2)).endOffsets(anyCollection());
+  }
+
+  @Test
+  void offsetsOfRemovedTopicsAreDropped() {
+    var other = new TopicPartition("other", 0);
+    when(consumer.endOffsets(anyCollection()))
+        .thenReturn(Map.of(TP0, 10L, other, 5L))
+        .thenReturn(Map.of(other, 7L));
+
+    offsetsService.getLatestOffsets(cluster, List.of(TP0, other)).block();
+    offsetsService.retainTopics(cluster.toBuilder()
+        .topics(Map.of("topic", InternalTopic.builder().name("topic").build()))
+        .build());
+
+    assertThat(offsetsService.getLatestOffsets(cluster, List.of(TP0, other)).block())
+        .containsEntry(TP0, 10L)
+        .containsEntry(other, 7L);
+    verify(consumer, times(2)).endOffsets(anyCollection());
+  }
+}
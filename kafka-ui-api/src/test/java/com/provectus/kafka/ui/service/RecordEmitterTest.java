@@ -1,5 +1,6 @@
 package com.provectus.kafka.ui.service;
 
+import static com.provectus.kafka.ui.service.ConsumingService.BackwardRecordEmitter;
 import static com.provectus.kafka.ui.service.ConsumingService.OffsetsSeek;
 import static com.provectus.kafka.ui.service.ConsumingService.RecordEmitter;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -9,11 +10,15 @@ import com.provectus.kafka.ui.model.ConsumerPosition;
 import com.provectus.kafka.ui.model.SeekType;
 import com.provectus.kafka.ui.producer.KafkaTestProducer;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import lombok.Value;
 import org.apache.kafka.clients.admin.NewTopic;
@@ -21,27 +26,35 @@ import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
 import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.record.TimestampType;
 import org.apache.kafka.common.serialization.BytesDeserializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.utils.Bytes;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.BaseSubscriber;
 import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
 
 class RecordEmitterTest extends AbstractBaseTest {
 
   static final int PARTITIONS = 5;
   static final int MSGS_PER_PARTITION = 100;
+  static final int MAX_POLL_RECORDS = 20;
 
   static final String TOPIC = RecordEmitterTest.class.getSimpleName() + "_" + UUID.randomUUID();
   static final String EMPTY_TOPIC = TOPIC + "_empty";
+  static final String UNORDERED_TOPIC = TOPIC + "_unordered";
   static final List<Record> SENT_RECORDS = new ArrayList<>();
 
   @BeforeAll
   static void generateMsgs() throws Exception {
     createTopic(new NewTopic(TOPIC, PARTITIONS, (short) 1));
     createTopic(new NewTopic(EMPTY_TOPIC, PARTITIONS, (short) 1));
+    createTopic(new NewTopic(UNORDERED_TOPIC, PARTITIONS, (short) 1));
     try (var producer = KafkaTestProducer.forKafka(kafka)) {
       for (int partition = 0; partition < PARTITIONS; partition++) {
         for (int i = 0; i < MSGS_PER_PARTITION; i++) {
@@ -52,13 +65,21 @@ class RecordEmitterTest extends AbstractBaseTest {
           SENT_RECORDS.add(new Record(value, metadata.partition(), metadata.offset(), ts));
         }
       }
-    }
+      // CreateTime timestamps set by producers are not monotonic within partition
+      long now = System.currentTimeMillis();
+      for (int partition = 0; partition < PARTITIONS; partition++) {
+        for (int i = 0; i < MSGS_PER_PARTITION; i++) {
+          long ts = now - ThreadLocalRandom.current().nextLong(100_000);
+          producer.send(new ProducerRecord<>(UNORDERED_TOPIC, partition, ts, null, "msg")).get();
+        }
+      }
   }
 
   @AfterAll
   static void cleanup() {
     deleteTopic(TOPIC);
     deleteTopic(EMPTY_TOPIC);
+    deleteTopic(UNORDERED_TOPIC);
   }
 
   @Test
@@ -68,6 +89,7 @@ class RecordEmitterTest extends AbstractBaseTest {
         new OffsetsSeek(EMPTY_TOPIC, new ConsumerPosition(SeekType.BEGINNING, Map.of())));
 
     Long polledValues = Flux.create(emitter)
+        .flatMapIterable(Function.identity())
         .limitRequest(100)
         .count()
         .block();
@@ -82,6 +104,7 @@ class RecordEmitterTest extends AbstractBaseTest {
         new OffsetsSeek(TOPIC, new ConsumerPosition(SeekType.BEGINNING, Map.of())));
 
     var polledValues = Flux.create(emitter)
+        .flatMapIterable(Function.identity())
         .map(this::deserialize)
         .limitRequest(Long.MAX_VALUE)
         .collect(Collectors.toList())
@@ -104,6 +127,7 @@ class RecordEmitterTest extends AbstractBaseTest {
         new OffsetsSeek(TOPIC, new ConsumerPosition(SeekType.OFFSET, targetOffsets)));
 
     var polledValues = Flux.create(emitter)
+        .flatMapIterable(Function.identity())
         .map(this::deserialize)
         .limitRequest(Long.MAX_VALUE)
         .collect(Collectors.toList())
@@ -130,6 +154,7 @@ class RecordEmitterTest extends AbstractBaseTest {
         new OffsetsSeek(TOPIC, new ConsumerPosition(SeekType.TIMESTAMP, targetTimestamps)));
 
     var polledValues = Flux.create(emitter)
+        .flatMapIterable(Function.identity())
         .map(this::deserialize)
         .limitRequest(Long.MAX_VALUE)
         .collect(Collectors.toList())
@@ -143,16 +168,180 @@ class RecordEmitterTest extends AbstractBaseTest {
     assertThat(polledValues).containsExactlyInAnyOrderElementsOf(expectedValues);
   }
 
-  private KafkaConsumer<Bytes, Bytes> createConsumer() {
-    return new KafkaConsumer<>(
+  @Test
+  void pollUntilTimestamp() {
+    int randRecordIdx = ThreadLocalRandom.current().nextInt(SENT_RECORDS.size());
+    long toTimestamp = SENT_RECORDS.get(randRecordIdx).getTimestamp();
+
+    var emitter = new RecordEmitter(
+        this::createConsumer,
+        new OffsetsSeek(TOPIC, new ConsumerPosition(SeekType.BEGINNING, Map.of())),
+        toTimestamp);
+
+    var polledValues = Flux.create(emitter)
+        .flatMapIterable(Function.identity())
+        .map(this::deserialize)
+        .limitRequest(Long.MAX_VALUE)
+        .collect(Collectors.toList())
+        .block();
+
+    var expectedValues = SENT_RECORDS.stream()
+        .filter(r -> r.getTimestamp() <= toTimestamp)
+        .map(Record::getValue)
+        .collect(Collectors.toList());
+
+    assertThat(polledValues).containsExactlyInAnyOrderElementsOf(expectedValues);
+  }
+
+  @Test
+  void pollUntilTimestampStopsPartitionAtFirstLaterRecord() {
+    var all = Flux.create(new RecordEmitter(
+        this::createConsumer,
+        new OffsetsSeek(UNORDERED_TOPIC, new ConsumerPosition(SeekType.BEGINNING, Map.of()))))
+        .flatMapIterable(Function.identity())
+        .limitRequest(Long.MAX_VALUE)
+        .collect(Collectors.toList())
+        .block();
+    long toTimestamp = all.stream().mapToLong(ConsumerRecord::timestamp).sorted()
+        .skip(all.size() / 2).findFirst().orElseThrow();
+
+    var polled = Flux.create(new RecordEmitter(
+        this::createConsumer,
+        new OffsetsSeek(UNORDERED_TOPIC, new ConsumerPosition(SeekType.BEGINNING, Map.of())),
+        toTimestamp))
+        .flatMapIterable(Function.identity())
+        .limitRequest(Long.MAX_VALUE)
+        .collect(Collectors.toList())
+        .block();
+
+    // every partition is read up to its first record after toTimestamp, even though some
+    // of following records have smaller timestamps
+    Function<ConsumerRecord<?, ?>, String> position = r -> r.partition() + ":" + r.offset();
+    List<String> expected = new ArrayList<>();
+    for (int partition = 0; partition < PARTITIONS; partition++) {
+      int p = partition;
+      all.stream()
+          .filter(r -> r.partition() == p)
+          .sorted(Comparator.comparingLong(ConsumerRecord::offset))
+          .takeWhile(r -> r.timestamp() <= toTimestamp)
+          .map(position)
+          .forEach(expected::add);
+    }
+    assertThat(polled).extracting(position).containsExactlyInAnyOrderElementsOf(expected);
+  }
+
+  @Test
+  void pollsNextBatchOnlyWhenRequested() throws Exception {
+    var emitter = new RecordEmitter(
+        this::createConsumer,
+        new OffsetsSeek(TOPIC, new ConsumerPosition(SeekType.BEGINNING, Map.of())));
+    var batches = new LinkedBlockingQueue<List<ConsumerRecord<Bytes, Bytes>>>();
+    var subscriber = new BaseSubscriber<List<ConsumerRecord<Bytes, Bytes>>>() {
+      @Override
+      protected void hookOnSubscribe(Subscription subscription) {
+        request(1);
+      }
+
+      @Override
+      protected void hookOnNext(List<ConsumerRecord<Bytes, Bytes>> batch) {
+        batches.add(batch);
+      }
+    };
+
+    Flux.create(emitter).subscribeOn(Schedulers.boundedElastic()).subscribe(subscriber);
+    try {
+      var first = batches.poll(30, TimeUnit.SECONDS);
+      assertThat(first).isNotEmpty().hasSizeLessThanOrEqualTo(MAX_POLL_RECORDS);
+      long polls = (long) ReflectionTestUtils.getField(emitter, "polls");
+
+      // without demand emitter waits instead of polling, nothing is buffered in the sink
+      Thread.sleep(3000);
+      assertThat(batches).isEmpty();
+      assertThat((long) ReflectionTestUtils.getField(emitter, "polls")).isEqualTo(polls);
+
+      subscriber.request(1);
+      var second = batches.poll(30, TimeUnit.SECONDS);
+      assertThat(second).isNotEmpty().hasSizeLessThanOrEqualTo(MAX_POLL_RECORDS);
+      Function<ConsumerRecord<?, ?>, String> position = r -> r.partition() + ":" + r.offset();
+      assertThat(second).extracting(position)
+          .doesNotContainAnyElementsOf(first.stream().map(position).collect(Collectors.toList()));
+    } finally {
+      subscriber.dispose();
+    }
+  }
+
+  @Test
+  void pollBackwardNewestFirst() {
+    var emitter = new BackwardRecordEmitter(
+        this::createConsumer,
+        TOPIC,
+        new ConsumerPosition(SeekType.BACKWARD, Map.of()),
+        null);
+
+    var polled = Flux.create(emitter)
+        .flatMapIterable(Function.identity())
+        .limitRequest(Long.MAX_VALUE)
+        .collect(Collectors.toList())
+        .block();
+
+    assertThat(polled.stream().map(this::deserialize)).containsExactlyInAnyOrderElementsOf(
+        SENT_RECORDS.stream().map(Record::getValue).collect(Collectors.toList()));
+    for (int partition = 0; partition < PARTITIONS; partition++) {
+      int p = partition;
+      assertThat(polled.stream().filter(r -> r.partition() == p).map(ConsumerRecord::offset))
+          .isSortedAccordingTo(Comparator.reverseOrder());
+    }
+  }
+
+  @Test
+  void pollBackwardKeepsPartitionOrderWithUnorderedTimestamps() {
+    var emitter = new BackwardRecordEmitter(
+        this::createConsumer,
+        UNORDERED_TOPIC,
+        new ConsumerPosition(SeekType.BACKWARD, Map.of()),
+        null);
+
+    var polled = Flux.create(emitter)
+        .flatMapIterable(Function.identity())
+        .limitRequest(Long.MAX_VALUE)
+        .collect(Collectors.toList())
+        .block();
+
+    assertThat(polled).hasSize(PARTITIONS * MSGS_PER_PARTITION);
+    for (int partition = 0; partition < PARTITIONS; partition++) {
+      int p = partition;
+      assertThat(polled.stream().filter(r -> r.partition() == p).map(ConsumerRecord::offset))
+          .isSortedAccordingTo(Comparator.reverseOrder());
+    }
+  }
+
+  @Test
+  void mergesPartitionsByTimestampKeepingOffsetsOrder() {
+    var records = List.of(
+        record(0, 0, 300), record(0, 1, 100), record(0, 2, 200),
+        record(1, 0, 150), record(1, 1, 250));
+
+    var ordered = BackwardRecordEmitter.newestFirst(new ArrayList<>(records));
+
+    assertThat(ordered).extracting(r -> r.partition() + ":" + r.offset())
+        .containsExactly("1:1", "0:2", "1:0", "0:1", "0:0");
+  }
+
+  private static ConsumerRecord<Bytes, Bytes> record(int partition, long offset, long ts) {
+    return new ConsumerRecord<>(TOPIC, partition, offset, ts, TimestampType.CREATE_TIME, 0L,
+        0, 0, null, null);
+  }
+
+  private KafkaConsumerPool.Lease createConsumer() {
+    return KafkaConsumerPool.Lease.unpooled(new KafkaConsumer<>(
         Map.of(
             ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, kafka.getBootstrapServers(),
             ConsumerConfig.GROUP_ID_CONFIG, UUID.randomUUID().toString(),
-            ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 20, // to check multiple polls
+            ConsumerConfig.MAX_POLL_RECORDS_CONFIG, MAX_POLL_RECORDS, // to check multiple polls
             ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, BytesDeserializer.class,
             ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, BytesDeserializer.class
         )
-    );
+    ));
   }
 
   private String deserialize(ConsumerRecord<Bytes, Bytes> rec) {
@@ -0,0 +1,133 @@
+package com.provectus.kafka.ui.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.provectus.kafka.ui.model.InternalTopic;
+import com.provectus.kafka.ui.model.InternalTopicConfig;
+import com.provectus.kafka.ui.model.KafkaCluster;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+
+class TopicConfigsServiceTest {
+
+  private static final List<InternalTopicConfig> CONFIGS = List.of(
+      InternalTopicConfig.builder().name("retention.ms").value("1000").build());
+  private static final List<InternalTopicConfig> UPDATED_CONFIGS = List.of(
+      InternalTopicConfig.builder().name("retention.ms").value("2000").build());
+
+  private final KafkaService kafkaService = mock(KafkaService.class);
+  private final ClustersStorage clustersStorage = mock(ClustersStorage.class);
+  private final ClusterSnapshotStore clusterSnapshotStore = mock(ClusterSnapshotStore.class);
+  private final TopicConfigsService topicConfigsService =
+      new TopicConfigsService(kafkaService, clustersStorage, clusterSnapshotStore);
+  private final KafkaCluster cluster = KafkaCluster.builder()
+      .name("local")
+      .topics(Map.of("topic", InternalTopic.builder().name("topic").build()))
+      .build();
+
+  @BeforeEach
+  void setUp() {
+    ReflectionTestUtils.setField(topicConfigsService, "refreshBatchSize", 2);
+  }
+
+  @Test
+  void loadsConfigsOnFirstAccessOnly() {
+    when(kafkaService.loadTopicsConfig(any(), anyCollection()))
+        .thenReturn(Mono.just(Map.of("topic", CONFIGS)));
+
+    assertThat(topicConfigsService.getTopicConfigs(cluster, "topic").block()).isEqualTo(CONFIGS);
+    assertThat(topicConfigsService.getTopicConfigs(cluster, "topic").block()).isEqualTo(CONFIGS);
+    verify(kafkaService, times(1)).loadTopicsConfig(cluster, List.of("topic"));
+  }
+
+  @Test
+  void invalidationForcesNewLoad() {
+    when(kafkaService.loadTopicsConfig(any(), anyCollection()))
+        .thenReturn(Mono.just(Map.of("topic", CONFIGS)))
+        .thenReturn(Mono.just(Map.of("topic", UPDATED_CONFIGS)));
+
+    topicConfigsService.getTopicConfigs(cluster, "topic").block();
+    topicConfigsService.invalidate(cluster, "topic");
+
+    assertThat(topicConfigsService.getTopicConfigs(cluster, "topic").block())
+        .isEqualTo(UPDATED_CONFIGS);
+  }
+
+  @Test
+  void configsLoadedBeforeInvalidationAreNotCached() throws Exception {
+    var staleLoad = new CompletableFuture<Map<String, List<InternalTopicConfig>>>();
+    when(kafkaService.loadTopicsConfig(any(), anyCollection()))
+        .thenReturn(Mono.fromFuture(staleLoad))
+        .thenReturn(Mono.just(Map.of("topic", UPDATED_CONFIGS)));
+
+    var stale = topicConfigsService.getTopicConfigs(cluster, "topic").toFuture();
+    topicConfigsService.invalidate(cluster, "topic");
+    staleLoad.complete(Map.of("topic", CONFIGS));
+
+    assertThat(stale.get(5, TimeUnit.SECONDS)).isEqualTo(CONFIGS);
+    assertThat(topicConfigsService.getTopicConfigs(cluster, "topic").block())
+        .isEqualTo(UPDATED_CONFIGS);
+  }
+
+  @Test
+  void servesConfigsRestoredFromSnapshot() {
+    when(clustersStorage.getKafkaClusters()).thenReturn(List.of(cluster));
+    when(clusterSnapshotStore.takeRestoredTopicConfigs("local"))
+        .thenReturn(Map.of("topic", CONFIGS));
+
+    topicConfigsService.init();
+
+    assertThat(topicConfigsService.getTopicConfigs(cluster, "topic").block()).isEqualTo(CONFIGS);
+    assertThat(topicConfigsService.getCachedConfigs(cluster)).containsEntry("topic", CONFIGS);
+    verify(kafkaService, never()).loadTopicsConfig(any(), anyCollection());
+  }
+
+  @Test
+  void refreshesAccessedConfigsInBatchesAndDropsRemovedTopics() {
+    List<String> topics = IntStream.range(0, 5).mapToObj(i -> "topic" + i)
+        .collect(Collectors.toList());
+    List<Collection<String>> batches = new ArrayList<>();
+    when(kafkaService.loadTopicsConfig(any(), anyCollection())).thenAnswer(inv -> {
+      Collection<String> batch = inv.getArgument(1);
+      batches.add(new ArrayList<>(batch));
+      return Mono.just(batch.stream()
+          .collect(Collectors.toMap(Function.identity(), t -> UPDATED_CONFIGS)));
+    });
+    KafkaCluster before = cluster.toBuilder()
+        .topics(topics.stream().collect(Collectors.toMap(Function.identity(),
+            t -> InternalTopic.builder().name(t).build())))
+        .build();
+    topics.forEach(t -> topicConfigsService.getTopicConfigs(before, t).block());
+    batches.clear();
+    // one of accessed topics was removed since
+    KafkaCluster after = before.toBuilder()
+        .topics(topics.subList(1, 5).stream().collect(Collectors.toMap(Function.identity(),
+            t -> InternalTopic.builder().name(t).build())))
+        .build();
+    when(clustersStorage.getKafkaClusters()).thenReturn(List.of(after));
+
+    topicConfigsService.refreshConfigs();
+
+    assertThat(batches).hasSize(2).allSatisfy(b -> assertThat(b).hasSize(2));
+    assertThat(batches.stream().flatMap(Collection::stream))
+        .containsExactlyInAnyOrderElementsOf(topics.subList(1, 5));
+  }
+}
@@ -0,0 +1,196 @@
+package com.provectus.kafka.ui.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.provectus.kafka.ui.config.ClustersProperties;
+import com.provectus.kafka.ui.model.InternalMetric;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerConnection;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import javax.management.remote.JMXConnector;
+import org.apache.commons.pool2.KeyedObjectPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.test.StepVerifier;
+
+class JmxClusterUtilTest {
+
+  private static final String URL = "service:jmx:rmi:///jndi/rmi://localhost:9997/jmxrmi";
+  private static final int TOPICS = 50;
+
+  private final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+  private MBeanServer server;
+  private MBeanServerConnection connection;
+  private JmxClusterUtil jmxClusterUtil;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    server = MBeanServerFactory.newMBeanServer();
+    for (int i = 0; i < TOPICS; i++) {
+      register("kafka.server:type=BrokerTopicMetrics,name=BytesInPerSec,topic=topic" + i);
+      register("kafka.server:type=BrokerTopicMetrics,name=BytesOutPerSec,topic=topic" + i);
+      register("kafka.log:type=Log,name=Size,topic=topic" + i + ",partition=0");
+      register("kafka.server:type=FetcherLagMetrics,name=ConsumerLag,topic=topic" + i);
+    }
+    connection = (MBeanServerConnection) Proxy.newProxyInstance(
+        getClass().getClassLoader(),
+        new Class<?>[] {MBeanServerConnection.class},
+        (proxy, method, args) -> {
+          calls.computeIfAbsent(method.getName(), k -> new AtomicInteger()).incrementAndGet();
+          try {
+            return method.invoke(server, args);
+          } catch (InvocationTargetException e) {
+            throw e.getCause();
+          }
+        });
+    jmxClusterUtil = new JmxClusterUtil(null, new ClustersProperties());
+    ReflectionTestUtils.setField(jmxClusterUtil, "threads", 1);
+    jmxClusterUtil.init();
+  }
+
+  @AfterEach
+  void tearDown() {
+    jmxClusterUtil.close();
+  }
+
+  @Test
+  void queriesOnlyWellKnownMetricsWithSingleCallPerMBean() throws Exception {
+    List<InternalMetric> metrics = jmxClusterUtil.collectJmxMetrics(URL, connection);
+
+    assertThat(metrics).hasSize(TOPICS * 2);
+    assertThat(metrics).allSatisfy(m -> {
+      assertThat(m.getName()).isIn("BytesInPerSec", "BytesOutPerSec");
+      assertThat(m.getValueNames()).containsExactlyInAnyOrder("Count", "OneMinuteRate");
+      assertThat(m.getValue("Count")).isEqualTo(42.0);
+      assertThat(m.getValue("OneMinuteRate")).isEqualTo(1.5);
+    });
+    // full scan used to cost 1 queryNames + (getMBeanInfo + 3 x getAttribute) for each of
+    // 150 kafka.server MBeans = 601 calls, targeted scrape costs 27 + 2 x 100 = 227 calls
+    assertThat(calls.get("queryNames").get()).isEqualTo(JmxMetricsName.values().length);
+    assertThat(calls.get("getMBeanInfo").get()).isEqualTo(TOPICS * 2);
+    assertThat(calls.get("getAttributes").get()).isEqualTo(TOPICS * 2);
+    assertThat(calls).doesNotContainKey("getAttribute");
+  }
+
+  @Test
+  void reusesCachedMBeanInfoOnSubsequentScrapes() throws Exception {
+    jmxClusterUtil.collectJmxMetrics(URL, connection);
+    calls.clear();
+
+    List<InternalMetric> metrics = jmxClusterUtil.collectJmxMetrics(URL, connection);
+
+    assertThat(metrics).hasSize(TOPICS * 2);
+    assertThat(calls).doesNotContainKey("getMBeanInfo");
+    assertThat(calls.get("getAttributes").get()).isEqualTo(TOPICS * 2);
+  }
+
+  @Test
+  void sharesValueNamesBetweenMBeansOfSameType() throws Exception {
+    List<InternalMetric> metrics = jmxClusterUtil.collectJmxMetrics(URL, connection);
+
+    assertThat(metrics).allSatisfy(m ->
+        assertThat(m.getValueNames()).isSameAs(metrics.get(0).getValueNames()));
+  }
+
+  @Test
+  void reducesMetricsOfDifferentBrokers() {
+    String[] names = {"Count", "OneMinuteRate"};
+    InternalMetric metric1 = new InternalMetric("BytesInPerSec", "cn", Map.of(), names,
+        new double[] {1, Double.NaN});
+    InternalMetric metric2 = new InternalMetric("BytesInPerSec", "cn", Map.of(), names,
+        new double[] {2, 0.5});
+
+    InternalMetric reduced = jmxClusterUtil.reduceJmxMetrics(metric1, metric2);
+
+    assertThat(reduced.getValue("Count")).isEqualTo(3.0);
+    assertThat(reduced.getValue("OneMinuteRate")).isEqualTo(0.5);
+  }
+
+  @Test
+  void skipsMBeansUnregisteredBetweenScrapes() throws Exception {
+    jmxClusterUtil.collectJmxMetrics(URL, connection);
+    server.unregisterMBean(
+        new ObjectName("kafka.server:type=BrokerTopicMetrics,name=BytesInPerSec,topic=topic0"));
+
+    List<InternalMetric> metrics = jmxClusterUtil.collectJmxMetrics(URL, connection);
+
+    assertThat(metrics).hasSize(TOPICS * 2 - 1);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void invalidatesConnectorOfTimedOutCall() throws Exception {
+    KeyedObjectPool<String, JMXConnector> pool = mock(KeyedObjectPool.class);
+    JMXConnector connector = mock(JMXConnector.class);
+    CountDownLatch released = new CountDownLatch(1);
+    when(pool.borrowObject(URL)).thenReturn(connector);
+    when(connector.getMBeanServerConnection()).thenAnswer(i -> {
+      released.await();
+      return connection;
+    });
+    JmxClusterUtil util = new JmxClusterUtil(pool, new ClustersProperties());
+    ReflectionTestUtils.setField(util, "threads", 1);
+    ReflectionTestUtils.setField(util, "timeoutMs", 100L);
+    util.init();
+    try {
+      StepVerifier.create(util.getJmxMetrics(9997, "localhost"))
+          .expectError(TimeoutException.class)
+          .verify();
+
+      verify(pool, timeout(1000)).invalidateObject(URL, connector);
+      released.countDown();
+      // call finishing after timeout must not give invalidated connector back to the pool
+      Thread.sleep(200);
+      verify(pool, never()).returnObject(any(), any());
+    } finally {
+      released.countDown();
+      util.close();
+    }
+  }
+
+  private void register(String name) throws Exception {
+    server.registerMBean(new Meter(), new ObjectName(name));
+  }
+
+  public interface MeterMBean {
+    long getCount();
+
+    double getOneMinuteRate();
+
+    String getRateUnit();
+  }
+
+  public static class Meter implements MeterMBean {
+    @Override
+    public long getCount() {
+      return 42;
+    }
+
+    @Override
+    public double getOneMinuteRate() {
+      return 1.5;
+    }
+
+    @Override
+    public String getRateUnit() {
+      return "SECONDS";
+    }
+  }
+}
@@ -0,0 +1,96 @@
+package com.provectus.kafka.ui.util;
+
+import static com.provectus.kafka.ui.model.MessageFilterType.DSL;
+import static com.provectus.kafka.ui.model.MessageFilterType.STRING_CONTAINS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.provectus.kafka.ui.exception.ValidationException;
+import com.provectus.kafka.ui.model.TopicMessage;
+import java.util.List;
+import java.util.Map;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+
+class MessageFilterTest {
+
+  private final TopicMessage message = new TopicMessage()
+      .key("user-42")
+      .headers(Map.of("source", "billing"))
+      .content(Map.of(
+          "id", 42,
+          "user", Map.of("name", "John", "tags", List.of("vip", "new"))
+      ));
+
+  @Test
+  void emptyQueryMatchesEverything() {
+    MessageFilter filter = MessageFilter.compile("", DSL);
+    assertThat(filter.testRecord(record(0, 0))).isTrue();
+    assertThat(filter.testMessage(message)).isTrue();
+  }
+
+  @Test
+  void plainTextSearchesNestedContentValues() {
+    assertThat(MessageFilter.compile("vi", STRING_CONTAINS).testMessage(message)).isTrue();
+    assertThat(MessageFilter.compile("Jo", null).testMessage(message)).isTrue();
+    assertThat(MessageFilter.compile("user", STRING_CONTAINS).testMessage(message)).isFalse();
+    assertThat(MessageFilter.compile("vi", DSL).testMessage(message)).isTrue();
+  }
+
+  @Test
+  void plainTextWithDslTokensIsSearchedAsIs() {
+    TopicMessage withTokens = new TopicMessage().content(Map.of(
+        "text", "partition:x && key:/a/ $.id=1 header:h"));
+    for (String query : List.of("partition:x", "partition:x && key:/a/", "key:/a/",
+        "$.id=1", "header:h", " && ")) {
+      MessageFilter filter = MessageFilter.compile(query, STRING_CONTAINS);
+      assertThat(filter.testMessage(withTokens)).as(query).isTrue();
+      assertThat(filter.testMessage(message)).as(query).isFalse();
+      assertThat(filter.testRecord(record(1, 0))).isTrue();
+      assertThat(filter.testKey(null)).isTrue();
+    }
+    assertThat(MessageFilter.compile("/[a/", STRING_CONTAINS).testMessage(message)).isFalse();
+  }
+
+  @Test
+  void regexPathKeyAndHeaderConditions() {
+    assertThat(MessageFilter.compile("/^J.hn$/", DSL).testMessage(message)).isTrue();
+    assertThat(MessageFilter.compile("$.user.name=John", DSL).testMessage(message)).isTrue();
+    assertThat(MessageFilter.compile("$.id=42", DSL).testMessage(message)).isTrue();
+    assertThat(MessageFilter.compile("$.user=John", DSL).testMessage(message)).isFalse();
+    assertThat(MessageFilter.compile("header:source=billing", DSL).testMessage(message)).isTrue();
+    assertThat(MessageFilter.compile("header:trace", DSL).testMessage(message)).isFalse();
+  }
+
+  @Test
+  void keyConditionsAreCheckedOnKeys() {
+    MessageFilter filter = MessageFilter.compile("key:/user-\\d+/ && vip", DSL);
+    assertThat(filter.testKey("user-42")).isTrue();
+    assertThat(filter.testKey("admin")).isFalse();
+    assertThat(filter.testKey(null)).isFalse();
+    assertThat(filter.testMessage(message)).isTrue();
+    assertThat(MessageFilter.compile("vip", DSL).testKey(null)).isTrue();
+  }
+
+  @Test
+  void partitionAndTimestampAreCheckedOnRecords() {
+    MessageFilter filter =
+        MessageFilter.compile("partition:1,2 && timestamp>=100 && timestamp<200", DSL);
+    assertThat(filter.testRecord(record(1, 100))).isTrue();
+    assertThat(filter.testRecord(record(0, 150))).isFalse();
+    assertThat(filter.testRecord(record(2, 200))).isFalse();
+    assertThat(filter.testMessage(message)).isTrue();
+  }
+
+  @Test
+  void failsOnMalformedConditions() {
+    assertThatThrownBy(() -> MessageFilter.compile("partition:x", DSL))
+        .isInstanceOf(ValidationException.class);
+    assertThatThrownBy(() -> MessageFilter.compile("/[a/", DSL))
+        .isInstanceOf(ValidationException.class);
+  }
+
+  private ConsumerRecord<?, ?> record(int partition, long timestamp) {
+    return new ConsumerRecord<>("topic", partition, 0, timestamp, null, 0L, 0, 0, null, null);
+  }
+}
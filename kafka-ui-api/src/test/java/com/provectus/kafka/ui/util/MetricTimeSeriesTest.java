@@ -0,0 +1,48 @@
+package com.provectus.kafka.ui.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class MetricTimeSeriesTest {
+
+  @Test
+  void keepsOnlyLastRawPoints() {
+    var series = new MetricTimeSeries(3, 0, 1000);
+    for (int i = 0; i < 5; i++) {
+      series.add(i * 100, i);
+    }
+    assertThat(points(series, 0, Long.MAX_VALUE)).containsExactly(2.0, 3.0, 4.0);
+  }
+
+  @Test
+  void servesEvictedRangeFromDownsampledPoints() {
+    var series = new MetricTimeSeries(2, 10, 1000);
+    // two buckets: [0, 1000) with avg 2, [1000, 2000) with avg 20, the second one
+    // overlaps raw points [1500, 2000] and must not be served
+    series.add(0, 1);
+    series.add(500, 3);
+    series.add(1000, 10);
+    series.add(1500, 30);
+    series.add(2000, 100);
+
+    assertThat(points(series, 0, Long.MAX_VALUE)).containsExactly(2.0, 30.0, 100.0);
+  }
+
+  @Test
+  void filtersPointsByRange() {
+    var series = new MetricTimeSeries(10, 10, 1000);
+    for (int i = 0; i < 10; i++) {
+      series.add(i * 100, i);
+    }
+    assertThat(points(series, 300, 500)).containsExactly(3.0, 4.0, 5.0);
+  }
+
+  private List<Double> points(MetricTimeSeries series, long from, long to) {
+    List<Double> result = new ArrayList<>();
+    series.forEach(from, to, (ts, value) -> result.add(value));
+    return result;
+  }
+}